@@ -0,0 +1,72 @@
+package com.akfc.training.mongodb.benchmark;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A search response ({@code List<ListingAndReview>}) in each negotiated encoding: encoding
+ * (server side), decoding (consumer side, and POST /bulk). Payload sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryFormatBenchmark {
+    
+    @Param({"json", "cbor", "smile"})
+    public String format;
+    
+    @Param({"20", "200"})
+    public int size;
+    
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<ListingAndReview> listings;
+    private byte[] payload;
+    
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = ListingFixtures.objectMapper(format);
+        writer = objectMapper.writer();
+        reader = objectMapper.readerForListOf(ListingAndReview.class);
+        
+        MappingMongoConverter converter = ListingFixtures.converter();
+        List<Document> documents = ListingFixtures.documents();
+        listings = documents.subList(0, Math.min(size, documents.size())).stream()
+                .map(document -> converter.read(ListingAndReview.class, document))
+                .toList();
+        payload = writer.writeValueAsBytes(listings);
+        System.out.printf("%n%s payload of %d listings: %d bytes%n", format, listings.size(), payload.length);
+    }
+    
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(listings);
+    }
+    
+    @Benchmark
+    public List<ListingAndReview> decode() throws IOException {
+        return reader.readValue(payload);
+    }
+}
@@ -0,0 +1,57 @@
+package com.akfc.training.mongodb.benchmark;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MappingMongoConverter} read (BSON document to entity, what every find pays per
+ * document) and write (entity to BSON document, what every save pays).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityMappingBenchmark {
+    
+    @Param({"largest", "median"})
+    public String fixture;
+    
+    private MappingMongoConverter converter;
+    private Document document;
+    private ListingAndReview listing;
+    
+    @Setup
+    public void setUp() {
+        converter = ListingFixtures.converter();
+        document = ListingFixtures.pick(ListingFixtures.documents(), fixture);
+        listing = converter.read(ListingAndReview.class, document);
+    }
+    
+    @Benchmark
+    public ListingAndReview read() {
+        return converter.read(ListingAndReview.class, document);
+    }
+    
+    @Benchmark
+    public Document write() {
+        Document target = new Document();
+        converter.write(listing, target);
+        return target;
+    }
+}
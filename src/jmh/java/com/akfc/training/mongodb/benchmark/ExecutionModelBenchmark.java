@@ -0,0 +1,116 @@
+package com.akfc.training.mongodb.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of a running instance: 400 concurrent clients send {@code GET /api/listings/{id}}
+ * (ids of the fixture dump, round robin) or a search ({@code searchPath}) to {@code baseUrl}.
+ * Throughput mode gives requests per millisecond and sample mode the latency percentiles
+ * (p0.99); 503s from admission are counted separately and printed after each iteration.
+ * <p>
+ * The execution model is the one the application was started with, so run the benchmark once
+ * per configuration and compare. Caches are turned off so every request reaches MongoDB:
+ * <pre>
+ * CACHES="--spring.cache.type=none --listings.result-cache.enabled=false"
+ * # platform threads (Tomcat pool)
+ * mvn spring-boot:run -Dspring-boot.run.arguments="$CACHES"
+ * # virtual threads without admission, then with admission (Java 21: -Pjava21)
+ * mvn -Pjava21 spring-boot:run -Dspring-boot.run.arguments="$CACHES --spring.threads.virtual.enabled=true"
+ * mvn -Pjava21 spring-boot:run -Dspring-boot.run.arguments="$CACHES --spring.profiles.active=virtual-threads"
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExecutionModel"
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class ExecutionModelBenchmark {
+    
+    @Param({"http://localhost:8080"})
+    public String baseUrl;
+    
+    @Param({"/api/listings/search/price-range?minPrice=50&maxPrice=150&limit=20&view=card"})
+    public String searchPath;
+    
+    private HttpClient client;
+    private List<URI> listingUris;
+    private URI searchUri;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        listingUris = ListingFixtures.documents().stream()
+                .map(document -> URI.create(baseUrl + "/api/listings/" + document.get("_id")))
+                .toList();
+        searchUri = URI.create(baseUrl + searchPath);
+        
+        // Fail fast instead of measuring connection errors
+        int status = client.send(HttpRequest.newBuilder(listingUris.get(0)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET " + listingUris.get(0) + " returned " + status
+                    + "; start the application with the sample data first");
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%d requests rejected with 503, %d failed%n",
+                rejected.getAndSet(0), failed.getAndSet(0));
+    }
+    
+    @Benchmark
+    public int findById() throws IOException, InterruptedException {
+        return get(listingUris.get(Math.floorMod(next.getAndIncrement(), listingUris.size())));
+    }
+    
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        return get(searchUri);
+    }
+    
+    private int get(URI uri) throws IOException, InterruptedException {
+        int status = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+        if (status == 503) {
+            rejected.incrementAndGet();
+        } else if (status != 200) {
+            failed.incrementAndGet();
+        }
+        return status;
+    }
+}
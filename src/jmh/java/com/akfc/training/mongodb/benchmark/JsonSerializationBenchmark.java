@@ -0,0 +1,73 @@
+package com.akfc.training.mongodb.benchmark;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of what the controller returns: a single {@link ListingAndReview}
+ * (GET /{id}) and a {@link Page} of them (GET ?page=&size=).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    
+    @Param({"largest", "median"})
+    public String fixture;
+    
+    @Param({"20"})
+    public int pageSize;
+    
+    private ObjectWriter writer;
+    private ListingAndReview listing;
+    private Page<ListingAndReview> page;
+    
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = ListingFixtures.objectMapper();
+        writer = objectMapper.writer();
+        
+        MappingMongoConverter converter = ListingFixtures.converter();
+        List<Document> documents = ListingFixtures.documents();
+        List<ListingAndReview> listings = documents.stream()
+                .map(document -> converter.read(ListingAndReview.class, document))
+                .toList();
+        listing = converter.read(ListingAndReview.class, ListingFixtures.pick(documents, fixture));
+        page = new PageImpl<>(listings.subList(0, Math.min(pageSize, listings.size())),
+                PageRequest.of(0, pageSize), listings.size());
+    }
+    
+    @Benchmark
+    public byte[] listing() throws JsonProcessingException {
+        return writer.writeValueAsBytes(listing);
+    }
+    
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,105 @@
+package com.akfc.training.mongodb.benchmark;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Real documents from {@code sample_data/airbnb.json} (override with
+ * {@code -Dlistings.fixtures=<file>}) and the converter / object mapper configured as the
+ * application configures them.
+ */
+final class ListingFixtures {
+    
+    static final String FILE_PROPERTY = "listings.fixtures";
+    static final String DEFAULT_FILE = "sample_data/airbnb.json";
+    
+    private ListingFixtures() {
+    }
+    
+    /**
+     * All documents of the dump, in extended-JSON types (Decimal128, Date, ...) as they are
+     * stored, ordered by descending number of reviews.
+     */
+    static List<Document> documents() {
+        Path file = Path.of(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+        try {
+            List<Document> documents = Document.parse(Files.readString(file))
+                    .getList("listingsAndReviews", Document.class);
+            return documents.stream()
+                    .sorted(Comparator.comparingInt(ListingFixtures::reviewCount).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read fixtures from " + file.toAbsolutePath(), e);
+        }
+    }
+    
+    /**
+     * The document with the most reviews ({@code largest}) or the median one ({@code median}).
+     */
+    static Document pick(List<Document> documents, String which) {
+        return switch (which) {
+            case "largest" -> documents.get(0);
+            case "median" -> documents.get(documents.size() / 2);
+            default -> throw new IllegalArgumentException("Unknown fixture: " + which);
+        };
+    }
+    
+    static MappingMongoConverter converter() {
+        // Same conversions as MongodbApplication.MongoConfig
+        MongoCustomConversions conversions = MongoCustomConversions.create(adapter ->
+                adapter.bigDecimal(MongoCustomConversions.BigDecimalRepresentation.DECIMAL128));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(ListingAndReview.class));
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+    
+    static ObjectMapper objectMapper() {
+        return objectMapper("json");
+    }
+    
+    /**
+     * The mapper of one negotiated encoding: {@code json}, {@code cbor} or {@code smile}.
+     */
+    static ObjectMapper objectMapper(String format) {
+        JsonFactory factory = switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        // Same defaults as Spring Boot's auto-configured mapper
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+    
+    private static int reviewCount(Document document) {
+        List<?> reviews = document.getList("reviews", Object.class);
+        return reviews != null ? reviews.size() : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.akfc.training.mongodb.benchmark;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.service.ListingQueries;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the service's queries and pipelines and rendering them to the documents sent to
+ * the server, including the field-name mapping the template applies to typed queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryConstructionBenchmark {
+    
+    private QueryMapper queryMapper;
+    private MongoPersistentEntity<?> entity;
+    
+    @Setup
+    public void setUp() {
+        MappingMongoConverter converter = ListingFixtures.converter();
+        queryMapper = new QueryMapper(converter);
+        entity = converter.getMappingContext().getRequiredPersistentEntity(ListingAndReview.class);
+    }
+    
+    @Benchmark
+    public Document customCriteria() {
+        Query query = ListingQueries.customQuery("Apartment", 2, new BigDecimal("150.00"), "United States");
+        return query.getQueryObject();
+    }
+    
+    @Benchmark
+    public Document customCriteriaMapped() {
+        Query query = ListingQueries.customQuery("Apartment", 2, new BigDecimal("150.00"), "United States");
+        return queryMapper.getMappedObject(query.getQueryObject(), entity);
+    }
+    
+    @Benchmark
+    public Document nearLocationMapped() {
+        Query query = ListingQueries.nearLocation(-73.98, 40.76, 1000);
+        return queryMapper.getMappedObject(query.getQueryObject(), entity);
+    }
+    
+    @Benchmark
+    public Document textSearch() {
+        return ListingQueries.textSearch("cozy apartment near the beach", "english", 0, 20).getQueryObject();
+    }
+    
+    @Benchmark
+    public List<Document> propertyTypeStatistics() {
+        return ListingQueries.propertyTypeStatistics().toPipeline(Aggregation.DEFAULT_CONTEXT);
+    }
+    
+    @Benchmark
+    public List<Document> topHostsByListings() {
+        return ListingQueries.topHostsByListings(10).toPipeline(Aggregation.DEFAULT_CONTEXT);
+    }
+}
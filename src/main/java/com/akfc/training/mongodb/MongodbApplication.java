@@ -1,10 +1,22 @@
 package com.akfc.training.mongodb;
 
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.metrics.MongoCommandMetrics;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 @SpringBootApplication
 public class MongodbApplication {
 
@@ -15,9 +27,59 @@ public class MongodbApplication {
     @Configuration
     public static class MongoConfig extends AbstractMongoClientConfiguration {
         
+        private final MongoCommandMetrics commandMetrics;
+        private final MeterRegistry meterRegistry;
+        private final ListingsProperties properties;
+        private final MongoProperties mongoProperties;
+        
+        public MongoConfig(MongoCommandMetrics commandMetrics, MeterRegistry meterRegistry,
+                           ListingsProperties properties, MongoProperties mongoProperties) {
+            this.commandMetrics = commandMetrics;
+            this.meterRegistry = meterRegistry;
+            this.properties = properties;
+            this.mongoProperties = mongoProperties;
+        }
+        
+        // Database named in spring.data.mongodb.uri (or spring.data.mongodb.database)
         @Override
         protected String getDatabaseName() {
-            return "airbnb";
+            return mongoProperties.getMongoClientDatabase();
+        }
+        
+        // BigDecimal as Decimal128 rather than the default string, so price ranges and sorts are
+        // numeric and index-backed; the reactive template shares these conversions
+        @Override
+        protected void configureConverters(MongoCustomConversions.MongoConverterConfigurationAdapter adapter) {
+            adapter.bigDecimal(MongoCustomConversions.BigDecimalRepresentation.DECIMAL128);
+        }
+        
+        // This configuration bypasses Boot's client customizers, so the connection string and the
+        // driver listeners are applied here; both clients then target the same deployment
+        @Override
+        protected void configureClientSettings(MongoClientSettings.Builder builder) {
+            builder.applyConnectionString(new ConnectionString(mongoProperties.determineUri()))
+                    .addCommandListener(commandMetrics)
+                    .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(
+                            new MongoMetricsConnectionPoolListener(meterRegistry)));
+            applyPoolSize(builder);
+        }
+        
+        // The reactive client is auto-configured by Boot from spring.data.mongodb.uri
+        @Bean
+        public MongoClientSettingsBuilderCustomizer reactiveCommandMetrics() {
+            return builder -> {
+                builder.addCommandListener(commandMetrics);
+                applyPoolSize(builder);
+            };
+        }
+        
+        // Sized once here so the admission semaphore and the pool agree
+        private void applyPoolSize(MongoClientSettings.Builder builder) {
+            ListingsProperties.ConnectionPool pool = properties.getConnectionPool();
+            builder.applyToConnectionPoolSettings(settings -> settings
+                    .maxSize(pool.getMaxSize())
+                    .minSize(pool.getMinSize())
+                    .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.akfc.training.mongodb.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkIngestReport {
+    
+    private BulkWriteMode mode;
+    private long received;
+    private long written;
+    private long failed;
+    private long durationMillis;
+    
+    // Set when reading the input stopped early (malformed document, broken stream)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String aborted;
+    
+    private List<BatchResult> batches = new ArrayList<>();
+    
+    public boolean isSuccessful() {
+        return failed == 0 && aborted == null;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResult {
+        private int batch;
+        private int size;
+        private int written;
+        private int failed;
+        
+        // First few error messages of the batch
+        private List<String> errors;
+    }
+}
@@ -0,0 +1,19 @@
+package com.akfc.training.mongodb.bulk;
+
+import java.util.Arrays;
+
+public enum BulkWriteMode {
+    
+    // Plain inserts; documents whose _id already exists are reported as failures
+    INSERT,
+    
+    // Replace-by-_id with upsert, for reloading listings that may already exist
+    REPLACE;
+    
+    public static BulkWriteMode from(String value) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported bulk mode: " + value));
+    }
+}
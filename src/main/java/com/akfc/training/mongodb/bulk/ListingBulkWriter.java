@@ -0,0 +1,269 @@
+package com.akfc.training.mongodb.bulk;
+
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.akfc.training.mongodb.config.BulkConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.akfc.training.mongodb.migration.ReviewBucketMigration;
+import com.akfc.training.mongodb.model.ReviewBucket;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a stream of listing documents (already in their stored BSON shape) with unordered
+ * bulk operations. Documents are grouped into batches of {@code batch-size}; up to
+ * {@code max-in-flight} batches are written concurrently and the producer blocks once that
+ * many are pending, so memory stays bounded at roughly (max-in-flight + 1) batches. Batches
+ * run on the shared {@link BulkConfig#BULK_WRITE_EXECUTOR} pool.
+ * <p>
+ * Bulk writes bypass optimistic locking: inserted listings start at version 0 and a replaced
+ * listing gets the stored version plus one, whatever version the document carries. Reviews are
+ * split into review buckets like a migrated listing's, so the review migration never sees them.
+ */
+@Slf4j
+@Component
+public class ListingBulkWriter {
+    
+    private static final int MAX_ERRORS_PER_BATCH = 5;
+    private static final String VERSION = "version";
+    private static final String REVIEWS = "reviews";
+    private static final String REVIEWS_BUCKETED = "reviews_bucketed";
+    
+    private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    private final CollectionVersion collectionVersion;
+    private final ReviewBucketMigration migration;
+    private final TaskExecutor writers;
+    
+    public ListingBulkWriter(MongoTemplate mongoTemplate, ListingsProperties properties,
+                             CollectionVersion collectionVersion, ReviewBucketMigration migration,
+                             @Qualifier(BulkConfig.BULK_WRITE_EXECUTOR) TaskExecutor writers) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.collectionVersion = collectionVersion;
+        this.migration = migration;
+        this.writers = writers;
+    }
+    
+    public BulkIngestReport write(Iterator<Document> documents, BulkWriteMode mode) {
+        int batchSize = properties.getBulk().getBatchSize();
+        int maxInFlight = properties.getBulk().getMaxInFlight();
+        long started = System.nanoTime();
+        
+        BulkIngestReport report = new BulkIngestReport();
+        report.setMode(mode);
+        List<BulkIngestReport.BatchResult> results = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        
+        try {
+            List<Document> batch = new ArrayList<>(batchSize);
+            int batchNumber = 0;
+            try {
+                while (documents.hasNext()) {
+                    batch.add(documents.next());
+                    report.setReceived(report.getReceived() + 1);
+                    if (batch.size() == batchSize) {
+                        pending.add(submit(batchNumber++, batch, mode, inFlight, cancelled, results));
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Keep what was parsed so far, report where and why reading stopped
+                log.warn("Bulk ingest input aborted after {} documents: {}", report.getReceived(), e.getMessage());
+                report.setAborted("Input aborted after document " + report.getReceived() + ": " + e.getMessage());
+            }
+            if (!batch.isEmpty()) {
+                pending.add(submit(batchNumber, batch, mode, inFlight, cancelled, results));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Queued batches are dropped; those already sent are waited for so the report is complete
+            cancelled.set(true);
+            report.setAborted("Interrupted while waiting for a writer");
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        
+        results.sort(Comparator.comparingInt(BulkIngestReport.BatchResult::getBatch));
+        report.setBatches(results);
+        report.setWritten(results.stream().mapToLong(BulkIngestReport.BatchResult::getWritten).sum());
+        report.setFailed(results.stream().mapToLong(BulkIngestReport.BatchResult::getFailed).sum());
+        report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+        
+        log.info("Bulk {} finished: {} received, {} written, {} failed in {} batches ({} ms)",
+                mode, report.getReceived(), report.getWritten(), report.getFailed(),
+                results.size(), report.getDurationMillis());
+        return report;
+    }
+    
+    private CompletableFuture<Void> submit(int batchNumber, List<Document> batch, BulkWriteMode mode,
+                                           Semaphore inFlight, AtomicBoolean cancelled,
+                                           List<BulkIngestReport.BatchResult> results)
+            throws InterruptedException {
+        inFlight.acquire();
+        return CompletableFuture
+                .runAsync(() -> {
+                    if (!cancelled.get()) {
+                        results.add(writeBatch(batchNumber, batch, mode));
+                    }
+                }, writers)
+                .whenComplete((ignored, error) -> inFlight.release());
+    }
+    
+    private BulkIngestReport.BatchResult writeBatch(int batchNumber, List<Document> batch, BulkWriteMode mode) {
+        try {
+            List<ReviewBucketMigration.Split> splits = splitReviews(batch, mode);
+            BulkOperations operations = mongoTemplate.bulkOps(
+                    BulkOperations.BulkMode.UNORDERED, ListingAndReviewIndexes.COLLECTION);
+            for (int i = 0; i < batch.size(); i++) {
+                Document document = batch.get(i);
+                if (mode == BulkWriteMode.INSERT) {
+                    document.put(VERSION, 0L);
+                    operations.insert(document);
+                } else {
+                    operations.upsert(new Query(Criteria.where("_id").is(document.get("_id"))),
+                            replaceWithNextVersion(document, splits.get(i) == null));
+                }
+            }
+            
+            try {
+                BulkWriteResult result = operations.execute();
+                writeBuckets(batch, splits, Set.of());
+                return result(batchNumber, batch.size(), result, List.of());
+            } catch (BulkOperationException e) {
+                // Unordered: everything but the failed documents has been written
+                writeBuckets(batch, splits, e.getErrors().stream()
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet()));
+                List<String> errors = e.getErrors().stream()
+                        .limit(MAX_ERRORS_PER_BATCH)
+                        .map(error -> "#" + error.getIndex() + ": " + error.getMessage())
+                        .toList();
+                log.warn("Bulk batch {} had {} failed documents", batchNumber, e.getErrors().size());
+                BulkIngestReport.BatchResult result = result(batchNumber, batch.size(), e.getResult(), errors);
+                result.setFailed(e.getErrors().size());
+                return result;
+            }
+        } catch (RuntimeException e) {
+            log.error("Bulk batch {} failed", batchNumber, e);
+            return new BulkIngestReport.BatchResult(batchNumber, batch.size(), 0, batch.size(),
+                    List.of(e.getMessage()));
+        } finally {
+            // Even a failed batch may have written part of its documents
+            collectionVersion.bump();
+        }
+    }
+    
+    // ========== Review buckets ==========
+    
+    /**
+     * Stores the reviews of each document the way {@link ReviewBucketMigration} does: only the
+     * most recent ones stay embedded, all of them go to numbered buckets. A listing replaced over
+     * an already bucketed one keeps its stored reviews and buckets, as with a PUT; its split is
+     * {@code null}. Documents without an {@code _id} get one here so their buckets can refer to it.
+     */
+    private List<ReviewBucketMigration.Split> splitReviews(List<Document> batch, BulkWriteMode mode) {
+        batch.stream()
+                .filter(document -> document.get("_id") == null)
+                .forEach(document -> document.put("_id", new ObjectId()));
+        Set<Object> bucketed = mode == BulkWriteMode.REPLACE ? bucketedIds(batch) : Set.of();
+        
+        List<ReviewBucketMigration.Split> splits = new ArrayList<>(batch.size());
+        for (Document document : batch) {
+            Object id = document.get("_id");
+            if (bucketed.contains(id)) {
+                splits.add(null);
+                continue;
+            }
+            ReviewBucketMigration.Split split = migration.split(id,
+                    document.getList(REVIEWS, Document.class, List.of()));
+            document.put(REVIEWS, split.recent());
+            document.put(REVIEWS_BUCKETED, true);
+            splits.add(split);
+        }
+        return splits;
+    }
+    
+    private Set<Object> bucketedIds(List<Document> batch) {
+        List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+        Set<Object> bucketed = new HashSet<>();
+        mongoTemplate.getCollection(ListingAndReviewIndexes.COLLECTION)
+                .find(Filters.and(Filters.in("_id", ids), Filters.eq(REVIEWS_BUCKETED, true)))
+                .projection(Projections.include("_id"))
+                .forEach(document -> bucketed.add(document.get("_id")));
+        return bucketed;
+    }
+    
+    // Writes the buckets of the listings that were stored and drops leftovers of a longer previous version
+    private void writeBuckets(List<Document> batch, List<ReviewBucketMigration.Split> splits, Set<Integer> failed) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReviewBucket.COLLECTION);
+        boolean any = false;
+        for (int i = 0; i < batch.size(); i++) {
+            ReviewBucketMigration.Split split = splits.get(i);
+            if (split == null || failed.contains(i)) {
+                continue;
+            }
+            for (Document bucket : split.buckets()) {
+                operations.replaceOne(new Query(Criteria.where("_id").is(bucket.get("_id"))), bucket,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            operations.remove(new Query(Criteria.where("listing_id").is(batch.get(i).get("_id"))
+                    .and("seq").gte(split.buckets().size())));
+            any = true;
+        }
+        if (any) {
+            operations.execute();
+        }
+    }
+    
+    // Whole-document replacement that keeps the version moving forward (0 when upserted)
+    private static AggregationUpdate replaceWithNextVersion(Document document, boolean keepReviews) {
+        document.remove(VERSION);
+        List<Document> merged = new ArrayList<>(List.of(new Document("$literal", document)));
+        if (keepReviews) {
+            document.remove(REVIEWS);
+            document.remove(REVIEWS_BUCKETED);
+            merged.add(new Document(REVIEWS, "$" + REVIEWS).append(REVIEWS_BUCKETED, "$" + REVIEWS_BUCKETED));
+        }
+        merged.add(new Document(VERSION, new Document("$add",
+                List.of(new Document("$ifNull", List.of("$" + VERSION, -1L)), 1L))));
+        return AggregationUpdate.from(List.of(Aggregation.stage(new Document("$replaceWith",
+                new Document("$mergeObjects", merged)))));
+    }
+    
+    private static BulkIngestReport.BatchResult result(int batchNumber, int size, BulkWriteResult result,
+                                                       List<String> errors) {
+        // Replacing a document with an identical one matches without modifying, it still counts as written
+        int written = result.getInsertedCount() + result.getMatchedCount() + result.getUpserts().size();
+        return new BulkIngestReport.BatchResult(batchNumber, size, written, 0, errors);
+    }
+}
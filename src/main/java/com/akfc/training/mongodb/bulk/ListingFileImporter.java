@@ -0,0 +1,115 @@
+package com.akfc.training.mongodb.bulk;
+
+import com.akfc.training.mongodb.model.ListingNumericFields;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Imports a dump in the format of {@code sample_data/airbnb.json}: a top-level object whose
+ * {@code listingsAndReviews} field is an array of documents in MongoDB extended JSON (a bare
+ * top-level array is accepted too).
+ * <p>
+ * A Jackson streaming parser walks the file and copies one array element at a time into a
+ * small buffer, which is parsed as extended JSON ({@code $date}, {@code $numberDecimal}, ...)
+ * into a {@link Document}. Documents are inserted as stored, without going through the entity
+ * mapping, by the {@link ListingBulkWriter}; only their numeric fields are normalized to the
+ * stored types ({@link ListingNumericFields}). Memory use is independent of the file size.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingFileImporter {
+    
+    static final String LISTINGS_FIELD = "listingsAndReviews";
+    
+    private final ObjectMapper objectMapper;
+    private final ListingBulkWriter bulkWriter;
+    
+    public BulkIngestReport importFile(Path file, BulkWriteMode mode) throws IOException {
+        log.info("Importing listings from {} (mode={}, {} bytes)", file, mode, Files.size(file));
+        JsonFactory factory = objectMapper.getFactory();
+        
+        try (InputStream in = Files.newInputStream(file);
+             JsonParser parser = factory.createParser(in)) {
+            positionAtListingsArray(parser);
+            return bulkWriter.write(new ArrayElementIterator(parser, factory), mode);
+        }
+    }
+    
+    private static void positionAtListingsArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object or array at the start of the file");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (LISTINGS_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IOException("No '" + LISTINGS_FIELD + "' array found");
+    }
+    
+    /**
+     * Yields the elements of the array the parser is positioned in, one document at a time.
+     */
+    private static class ArrayElementIterator implements Iterator<Document> {
+        
+        private final JsonParser parser;
+        private final JsonFactory factory;
+        private JsonToken next;
+        
+        ArrayElementIterator(JsonParser parser, JsonFactory factory) {
+            this.parser = parser;
+            this.factory = factory;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = parser.nextToken();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next == JsonToken.START_OBJECT;
+        }
+        
+        @Override
+        public Document next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            next = null;
+            StringWriter buffer = new StringWriter(8192);
+            try (JsonGenerator generator = factory.createGenerator(buffer)) {
+                generator.copyCurrentStructure(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return ListingNumericFields.normalize(Document.parse(buffer.toString()));
+        }
+    }
+}
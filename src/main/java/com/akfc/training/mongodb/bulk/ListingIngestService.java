@@ -0,0 +1,74 @@
+package com.akfc.training.mongodb.bulk;
+
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ListingIngestService {
+    
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
+    private final ListingBulkWriter bulkWriter;
+    
+    /**
+     * Ingests listings from a request body holding newline-delimited JSON (or a JSON array).
+     * Listings are parsed one at a time, converted to their stored shape and handed to the
+     * bulk writer, so the body is never held in memory as a whole.
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, allEntries = true)
+    public BulkIngestReport ingest(InputStream body, BulkWriteMode mode) throws IOException {
+        log.info("Ingesting listings from stream (mode={})", mode);
+        
+        MappingIterator<ListingAndReview> listings = objectMapper
+                .readerFor(ListingAndReview.class)
+                .readValues(body);
+        
+        Iterator<Document> documents = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return listings.hasNext();
+            }
+            
+            @Override
+            public Document next() {
+                return toDocument(listings.next());
+            }
+        };
+        
+        try (listings) {
+            return bulkWriter.write(documents, mode);
+        }
+    }
+    
+    /**
+     * Writes listings already bound from a request body (JSON, CBOR or Smile array) through the
+     * same bulk writer: existing ids fail individually in INSERT mode and are replaced in REPLACE
+     * mode, and the report tells which documents were not written.
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, allEntries = true)
+    public BulkIngestReport write(List<ListingAndReview> listings, BulkWriteMode mode) {
+        log.info("Writing {} listings in bulk (mode={})", listings.size(), mode);
+        return bulkWriter.write(listings.stream().map(this::toDocument).iterator(), mode);
+    }
+    
+    private Document toDocument(ListingAndReview listing) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(listing, document);
+        return document;
+    }
+}
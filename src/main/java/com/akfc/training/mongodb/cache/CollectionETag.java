@@ -0,0 +1,18 @@
+package com.akfc.training.mongodb.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET handler whose response only depends on its request and on the listings collection:
+ * it gets a weak ETag derived from the {@link CollectionVersion}, and a matching
+ * {@code If-None-Match} is answered with 304 before the handler runs.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CollectionETag {
+}
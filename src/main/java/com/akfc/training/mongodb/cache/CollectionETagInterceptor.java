@@ -0,0 +1,42 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GETs on {@link CollectionETag} handlers. The tag is taken before the handler reads
+ * anything, so a write racing with the read yields an older tag, never a newer one.
+ * <p>
+ * The tag also carries the current {@code listings.etags.weak-validity} window. Reads from a
+ * lagging secondary, or writes through another node that this one cannot observe, may have been
+ * tagged with the current version; rotating the tag bounds how long such a response can be
+ * revalidated.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionETagInterceptor implements HandlerInterceptor {
+    
+    private final CollectionVersion collectionVersion;
+    private final ListingsProperties properties;
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ListingsProperties.Etags etags = properties.getEtags();
+        if (!etags.isEnabled() || !(handler instanceof HandlerMethod method)
+                || !method.hasMethodAnnotation(CollectionETag.class)) {
+            return true;
+        }
+        // One URL, several encodings (JSON, CBOR, Smile): shared caches must keep them apart
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        long window = System.currentTimeMillis() / Math.max(1, etags.getWeakValidity().toMillis());
+        String etag = "W/\"" + collectionVersion.tag() + "-" + Long.toString(window, 36) + "\"";
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,51 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.changes.ListingChange;
+import com.akfc.training.mongodb.changes.ListingChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the listings collection as seen by this node: bumped after every local write and
+ * on every change event, which also covers writes made through other nodes. Cached query
+ * results and coalesced reads are keyed by it, so a bump makes all of them unreachable at once.
+ * The counter restarts with the process, so {@link #tag()} qualifies it with a per-process id.
+ */
+@Component
+public class CollectionVersion implements ListingChangeListener {
+    
+    private final String node = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+    
+    public long current() {
+        return version.get();
+    }
+    
+    // Identifies the version across processes, e.g. in weak ETags served by several nodes
+    public String tag() {
+        return node + "-" + current();
+    }
+    
+    public void bump() {
+        version.incrementAndGet();
+    }
+    
+    // Only the event itself matters, not any of the listing's fields
+    @Override
+    public Set<String> fields() {
+        return Set.of();
+    }
+    
+    @Override
+    public void onChange(ListingChange change) {
+        bump();
+    }
+    
+    @Override
+    public void onReset() {
+        bump();
+    }
+}
@@ -0,0 +1,70 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.changes.ListingChange;
+import com.akfc.training.mongodb.changes.ListingChangeListener;
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonObjectId;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Fills and invalidates the {@link CacheConfig#LISTING_BY_ID} cache. Hits are served by the
+ * cache interceptor in front of {@code findById}; on a miss the listing is cached here, unless
+ * the {@link CollectionVersion} moved on while it was read. A write bumps the version before
+ * its eviction runs, so a listing read before the write can no longer be cached after that
+ * eviction and served stale until it expires. Listings changed through other nodes are evicted
+ * when their change event arrives.
+ */
+@Component
+@RequiredArgsConstructor
+public class ListingByIdCache implements ListingChangeListener {
+    
+    private final CacheManager cacheManager;
+    private final CollectionVersion collectionVersion;
+    
+    /**
+     * Caches a listing read at {@code readAt}, the collection version taken before the query.
+     */
+    public void fill(String id, ListingAndReview listing, long readAt) {
+        Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+        if (cache == null || collectionVersion.current() != readAt) {
+            return;
+        }
+        cache.put(id, listing);
+        // A write may have bumped the version and evicted between the check and the put
+        if (collectionVersion.current() != readAt) {
+            cache.evict(id);
+        }
+    }
+    
+    // Only the event itself matters, not any of the listing's fields
+    @Override
+    public Set<String> fields() {
+        return Set.of();
+    }
+    
+    // Bumped here too, whatever the listener order, so a fill racing with the eviction is dropped
+    @Override
+    public void onChange(ListingChange change) {
+        collectionVersion.bump();
+        Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+        if (cache != null && change.id() != null) {
+            cache.evict(change.id() instanceof BsonObjectId objectId
+                    ? objectId.getValue().toHexString() : change.id());
+        }
+    }
+    
+    @Override
+    public void onReset() {
+        collectionVersion.bump();
+        Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
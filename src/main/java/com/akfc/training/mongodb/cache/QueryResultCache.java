@@ -0,0 +1,109 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Results of listing searches and aggregations, keyed by the canonical query or pipeline and
+ * the {@link CollectionVersion} they were read at. Any write or change event moves the version
+ * on, so entries are never served stale; entries of older versions are dropped on the next
+ * lookup.
+ * <p>
+ * Results range from a few statistics rows to pages of full listings, so the cache is bounded
+ * by weight ({@code listings.result-cache.max-weight}): an entry weighs the size of its JSON
+ * response, counted without being buffered. {@code expire-after-write} bounds how long a result
+ * survives when changes from other nodes cannot be observed (no change stream on a standalone).
+ */
+@Slf4j
+@Component
+public class QueryResultCache {
+    
+    private final boolean enabled;
+    private final CollectionVersion collectionVersion;
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Object> cache;
+    private final AtomicLong cachedVersion = new AtomicLong();
+    
+    public QueryResultCache(ListingsProperties properties, CollectionVersion collectionVersion,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        ListingsProperties.ResultCache settings = properties.getResultCache();
+        this.enabled = settings.isEnabled();
+        this.collectionVersion = collectionVersion;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxWeight().toBytes())
+                .weigher((Key key, Object result) -> weigh(result))
+                .expireAfterWrite(settings.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "listingResults");
+        if (enabled) {
+            log.info("Query result cache enabled: max weight {}, expire after write {}",
+                    settings.getMaxWeight(), settings.getExpireAfterWrite());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> T get(String operation, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long version = collectionVersion.current();
+        long previous = cachedVersion.getAndSet(version);
+        if (previous != version) {
+            cache.invalidateAll();
+        }
+        
+        Key cacheKey = new Key(operation, key, version);
+        Object cached = cache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T result = loader.get();
+        if (result != null) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+    
+    // Results that cannot be weighed are larger than the cache and evicted right away
+    private int weigh(Object result) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(counter, result);
+        } catch (IOException e) {
+            log.warn("Cannot weigh a cached {}: {}", result.getClass().getSimpleName(), e.getMessage());
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(counter.count, Integer.MAX_VALUE);
+    }
+    
+    private record Key(String operation, Object key, long version) {
+    }
+    
+    private static final class CountingOutputStream extends OutputStream {
+        
+        private long count;
+        
+        @Override
+        public void write(int b) {
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.akfc.training.mongodb.changes;
+
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+
+/**
+ * One insert, update, replace or delete on the listings collection, with the listing before
+ * and after the change restricted to the fields the listeners asked for. {@code before} is
+ * null for inserts and {@code after} for deletes; either may also be null when the server no
+ * longer has the pre- or post-image, in which case listeners should resynchronize.
+ * {@code clusterTime} orders the change against reads and other changes.
+ */
+public record ListingChange(Type type, Object id, Document before, Document after, BsonTimestamp clusterTime) {
+    
+    public enum Type {
+        INSERT, UPDATE, REPLACE, DELETE
+    }
+    
+    /**
+     * Whether both images the change type implies are present.
+     */
+    public boolean isComplete() {
+        boolean beforeKnown = type == Type.INSERT || before != null;
+        boolean afterKnown = type == Type.DELETE || after != null;
+        return beforeKnown && afterKnown;
+    }
+}
@@ -0,0 +1,24 @@
+package com.akfc.training.mongodb.changes;
+
+import java.util.Set;
+
+/**
+ * Receives changes to the listings collection from the {@link ListingChangeStream}, on its
+ * single watcher thread and in oplog order.
+ */
+public interface ListingChangeListener {
+    
+    /**
+     * Listing fields (dotted paths) this listener reads from the before / after images; the
+     * stream projects everything else away.
+     */
+    Set<String> fields();
+    
+    void onChange(ListingChange change);
+    
+    /**
+     * Changes may have been missed (first start without a resume token, history lost,
+     * collection dropped, or change streams unavailable): resynchronize from the collection.
+     */
+    void onReset();
+}
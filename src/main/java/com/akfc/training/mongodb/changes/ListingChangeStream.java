@@ -0,0 +1,242 @@
+package com.akfc.training.mongodb.changes;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails a change stream on the listings collection and fans every change out to the
+ * {@link ListingChangeListener} beans. Pre- and post-images are enabled on the collection so
+ * updates and deletes carry the listing as it was. The resume token is checkpointed in
+ * {@value #STATE_COLLECTION}, so a restart continues where the previous run stopped.
+ * <p>
+ * Change streams need a replica set; on a standalone server listeners are reset once and then
+ * left to their own periodic resynchronization.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingChangeStream implements DisposableBean {
+    
+    static final String STATE_COLLECTION = "changeStreamState";
+    
+    private static final int NOT_A_REPLICA_SET = 40573;
+    private static final int HISTORY_LOST = 286;
+    private static final int INVALID_RESUME_TOKEN = 260;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+    
+    private final MongoTemplate mongoTemplate;
+    private final List<ListingChangeListener> listeners;
+    private final ListingsProperties properties;
+    
+    private volatile boolean running;
+    private Thread watcher;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (!properties.getChanges().isEnabled() || listeners.isEmpty()) {
+            log.info("Listing change stream is disabled");
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::run, "listing-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    private void run() {
+        enablePreAndPostImages();
+        while (running) {
+            try {
+                watch();
+            } catch (MongoServerException e) {
+                if (e.getCode() == NOT_A_REPLICA_SET) {
+                    log.warn("Change streams need a replica set; listeners will not receive live changes");
+                    reset();
+                    return;
+                }
+                if (e.getCode() == HISTORY_LOST || e.getCode() == INVALID_RESUME_TOKEN) {
+                    log.warn("Cannot resume the change stream ({}), starting over", e.getMessage());
+                    clearResumeToken();
+                    continue;
+                }
+                pause(e);
+            } catch (MongoException | IllegalStateException e) {
+                pause(e);
+            }
+        }
+    }
+    
+    private void watch() {
+        BsonDocument resumeToken = loadResumeToken();
+        if (resumeToken == null) {
+            // Whatever happened before now was never seen
+            reset();
+        }
+        
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(ListingAndReviewIndexes.COLLECTION)
+                .watch(pipeline())
+                .fullDocument(FullDocument.WHEN_AVAILABLE)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                // Bounds how long stop() waits for the watcher
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        
+        int checkpointEvery = properties.getChanges().getCheckpointEvery();
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            log.info("Watching {} ({})", ListingAndReviewIndexes.COLLECTION,
+                    resumeToken != null ? "resumed" : "from now");
+            int sinceCheckpoint = 0;
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event != null) {
+                    if (event.getOperationType() == OperationType.INVALIDATE) {
+                        log.warn("Change stream invalidated (collection dropped or renamed)");
+                        clearResumeToken();
+                        return;
+                    }
+                    dispatch(event);
+                    sinceCheckpoint++;
+                }
+                if (sinceCheckpoint >= checkpointEvery || (event == null && sinceCheckpoint > 0)) {
+                    saveResumeToken(cursor.getResumeToken());
+                    sinceCheckpoint = 0;
+                }
+            }
+            if (sinceCheckpoint > 0) {
+                saveResumeToken(cursor.getResumeToken());
+            }
+        }
+    }
+    
+    private List<Document> pipeline() {
+        Set<String> fields = new TreeSet<>(Set.of("_id"));
+        listeners.forEach(listener -> fields.addAll(listener.fields()));
+        
+        Document projection = new Document("operationType", 1)
+                .append("documentKey", 1)
+                .append("clusterTime", 1)
+                .append("ns", 1);
+        for (String field : fields) {
+            projection.append("fullDocument." + field, 1).append("fullDocumentBeforeChange." + field, 1);
+        }
+        return List.of(
+                new Document("$match", new Document("operationType",
+                        new Document("$in", List.of("insert", "update", "replace", "delete", "invalidate")))),
+                new Document("$project", projection));
+    }
+    
+    private void dispatch(ChangeStreamDocument<Document> event) {
+        ListingChange.Type type = switch (event.getOperationType()) {
+            case INSERT -> ListingChange.Type.INSERT;
+            case UPDATE -> ListingChange.Type.UPDATE;
+            case REPLACE -> ListingChange.Type.REPLACE;
+            case DELETE -> ListingChange.Type.DELETE;
+            default -> null;
+        };
+        if (type == null) {
+            return;
+        }
+        
+        ListingChange change = new ListingChange(type, id(event.getDocumentKey()),
+                event.getFullDocumentBeforeChange(), event.getFullDocument(), event.getClusterTime());
+        for (ListingChangeListener listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                log.error("{} failed on {} of {}", listener.getClass().getSimpleName(), type, change.id(), e);
+            }
+        }
+    }
+    
+    private void reset() {
+        for (ListingChangeListener listener : listeners) {
+            try {
+                listener.onReset();
+            } catch (RuntimeException e) {
+                log.error("{} failed to reset", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+    
+    private void enablePreAndPostImages() {
+        try {
+            mongoTemplate.getDb().runCommand(new Document("collMod", ListingAndReviewIndexes.COLLECTION)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (MongoException e) {
+            log.warn("Could not enable pre- and post-images on {}; updates and deletes will "
+                    + "trigger resynchronization: {}", ListingAndReviewIndexes.COLLECTION, e.getMessage());
+        }
+    }
+    
+    private BsonDocument loadResumeToken() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION)
+                .find(Filters.eq("_id", ListingAndReviewIndexes.COLLECTION))
+                .first();
+        Document token = state != null ? state.get("resumeToken", Document.class) : null;
+        return token != null ? token.toBsonDocument() : null;
+    }
+    
+    private void saveResumeToken(BsonDocument token) {
+        if (token == null) {
+            return;
+        }
+        mongoTemplate.getCollection(STATE_COLLECTION).replaceOne(
+                Filters.eq("_id", ListingAndReviewIndexes.COLLECTION),
+                new Document("_id", ListingAndReviewIndexes.COLLECTION).append("resumeToken", token),
+                new ReplaceOptions().upsert(true));
+    }
+    
+    private void clearResumeToken() {
+        mongoTemplate.getCollection(STATE_COLLECTION).deleteOne(Filters.eq("_id", ListingAndReviewIndexes.COLLECTION));
+    }
+    
+    private void pause(RuntimeException e) {
+        log.warn("Listing change stream failed, retrying in {} ms: {}", RETRY_DELAY_MILLIS, e.getMessage());
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+    
+    private static Object id(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        return id != null && id.isString() ? id.asString().getValue() : id;
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
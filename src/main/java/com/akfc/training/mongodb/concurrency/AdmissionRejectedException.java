@@ -0,0 +1,12 @@
+package com.akfc.training.mongodb.concurrency;
+
+/**
+ * Thrown when no Mongo admission permit became available within
+ * {@code listings.admission.max-wait}; mapped to 503 Service Unavailable.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,87 @@
+package com.akfc.training.mongodb.concurrency;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the Mongo connection pool: a fair semaphore with as many
+ * permits as the pool has connections ({@code listings.connection-pool.max-size}).
+ * <p>
+ * With virtual threads, request concurrency is no longer bounded by a worker pool, so
+ * thousands of requests could otherwise wait in the driver's pool checkout queue and time out
+ * there after its (long) max wait. Waiting on this semaphore instead is cheap for a virtual
+ * thread, and a request that cannot be admitted within {@code listings.admission.max-wait} is
+ * rejected immediately with an {@link AdmissionRejectedException}.
+ */
+@Slf4j
+@Component
+public class MongoAdmission {
+    
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    
+    @Autowired
+    public MongoAdmission(ListingsProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getAdmission().isEnabled(), properties.getConnectionPool().getMaxSize(),
+                properties.getAdmission().getMaxWait(), meterRegistry);
+    }
+    
+    public MongoAdmission(boolean enabled, int permits, Duration maxWait, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.waitTimer = Timer.builder("listings.admission.wait")
+                .description("Time spent waiting for a Mongo admission permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("listings.admission.rejected")
+                .description("Requests rejected after waiting listings.admission.max-wait")
+                .register(meterRegistry);
+        Gauge.builder("listings.admission.queued", this.permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a Mongo admission permit")
+                .register(meterRegistry);
+        Gauge.builder("listings.admission.available", this.permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Mongo admission enabled: {} permits, max wait {}", permits, maxWait);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for a Mongo connection");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new AdmissionRejectedException("No Mongo connection available, retry later");
+        }
+    }
+    
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,38 @@
+package com.akfc.training.mongodb.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds a {@link MongoAdmission} permit for the duration of every public
+ * {@code ListingAndReviewService} call. Runs inside the cache interceptor so cache hits are
+ * never queued. Streams returned by the service keep their connection after the permit is
+ * released.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class MongoAdmissionAspect {
+    
+    private final MongoAdmission admission;
+    
+    @Around("execution(public * com.akfc.training.mongodb.service.ListingAndReviewService.*(..))"
+            + " || execution(public * com.akfc.training.mongodb.service.ReviewService.*(..))")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!admission.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        admission.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            admission.release();
+        }
+    }
+}
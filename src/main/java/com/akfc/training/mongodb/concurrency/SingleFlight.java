@@ -0,0 +1,120 @@
+package com.akfc.training.mongodb.concurrency;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with an equal key share one execution of the loader
+ * and its result. The first caller (the leader) runs it; callers arriving while it is in
+ * flight wait for its result, or its exception, instead of sending the same query again.
+ * Nothing is kept once the leader finishes, so this is not a cache.
+ * <p>
+ * Results are shared between requests and must not be modified by the callers. Keys include
+ * the collection version, so reads issued after a write never join a read that started before it.
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+    
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> executed = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public SingleFlight(ListingsProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getSingleFlight().isEnabled(), meterRegistry);
+    }
+    
+    public SingleFlight(boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("listings.single-flight.in-flight", inFlight, Map::size)
+                .description("Distinct reads currently executing on behalf of one or more callers")
+                .register(meterRegistry);
+        log.info("Single-flight coalescing {}", enabled ? "enabled" : "disabled");
+    }
+    
+    /**
+     * Runs the loader, or joins the execution in flight for the same operation and key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key flightKey = new Key(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            counter(coalesced, operation, "coalesced").increment();
+            return (T) join(leader);
+        }
+        
+        counter(executed, operation, "executed").increment();
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+    
+    /**
+     * Canonical key of a find: filter, projection, sort, skip and limit. The read preference is
+     * left out as it is derived from the workload, not from the caller.
+     */
+    public static Object key(Query query, Object... qualifiers) {
+        return Arrays.asList(query.getQueryObject(), query.getFieldsObject(), query.getSortObject(),
+                query.getSkip(), query.getLimit(), Arrays.asList(qualifiers));
+    }
+    
+    // Canonical key of an aggregation: its rendered pipeline
+    public static Object key(Aggregation aggregation, Object... qualifiers) {
+        return Arrays.asList(aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT), Arrays.asList(qualifiers));
+    }
+    
+    private static Object join(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private Counter counter(Map<String, Counter> counters, String operation, String outcome) {
+        return counters.computeIfAbsent(operation, name -> Counter.builder("listings.single-flight.calls")
+                .description("Reads executed against Mongo or coalesced onto one in flight")
+                .tag("operation", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+    
+    private record Key(String operation, Object key) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.akfc.training.mongodb.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR and Smile next to JSON, in both directions: responses are encoded in the format asked
+ * for in {@code Accept} and request bodies (e.g. POST /bulk) are read by {@code Content-Type}.
+ * The mappers come from Boot's builder, so they share every customization of the JSON one;
+ * these beans replace the converters Spring MVC would otherwise create with plain defaults.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+    
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+    
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
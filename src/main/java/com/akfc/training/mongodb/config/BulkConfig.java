@@ -0,0 +1,39 @@
+package com.akfc.training.mongodb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writer threads shared by every bulk ingest (NDJSON, JSON array, startup import), so concurrent
+ * requests add up to at most {@code listings.bulk.writer-threads} bulk writes against the cluster.
+ */
+@Configuration
+public class BulkConfig {
+    
+    public static final String BULK_WRITE_EXECUTOR = "bulkWriteExecutor";
+    
+    @Bean(BULK_WRITE_EXECUTOR)
+    public ThreadPoolTaskExecutor bulkWriteExecutor(ListingsProperties properties) {
+        ListingsProperties.Bulk bulk = properties.getBulk();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulk.getWriterThreads());
+        executor.setMaxPoolSize(bulk.getWriterThreads());
+        executor.setQueueCapacity(bulk.getWriterQueueCapacity());
+        executor.setThreadNamePrefix("bulk-writer-");
+        // Once the queue is full the request thread writes its batch itself instead of failing;
+        // after shutdown the batch is rejected rather than silently dropped, which would leave
+        // the request waiting on it forever
+        executor.setRejectedExecutionHandler((batch, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Bulk writer pool is shut down");
+            }
+            batch.run();
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,18 @@
+package com.akfc.training.mongodb.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches are Caffeine caches configured through {@code spring.cache.*} in
+ * application.properties (size bound, TTL, statistics for /actuator/metrics).
+ */
+@Configuration
+// Between the metrics aspect (outermost) and Mongo admission, so cache hits are timed but never queued
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+public class CacheConfig {
+    
+    // Cache in front of ListingAndReviewService.findById, filled and invalidated by ListingByIdCache and on writes
+    public static final String LISTING_BY_ID = "listingById";
+}
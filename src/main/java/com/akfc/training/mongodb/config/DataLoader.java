@@ -1,5 +1,9 @@
 package com.akfc.training.mongodb.config;
 
+import com.akfc.training.mongodb.bulk.BulkIngestReport;
+import com.akfc.training.mongodb.bulk.BulkWriteMode;
+import com.akfc.training.mongodb.bulk.ListingFileImporter;
+import com.akfc.training.mongodb.bulk.ListingIngestService;
 import com.akfc.training.mongodb.model.*;
 import com.akfc.training.mongodb.service.ListingAndReviewService;
 import lombok.RequiredArgsConstructor;
@@ -8,6 +12,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -18,11 +23,26 @@ import java.util.List;
 public class DataLoader implements CommandLineRunner {
     
     private final ListingAndReviewService service;
+    private final ListingFileImporter fileImporter;
+    private final ListingIngestService ingestService;
+    private final ListingsProperties properties;
     
     @Override
     public void run(String... args) throws Exception {
-        // Check if data already exists
-        if (service.findAll().isEmpty()) {
+        // Check if data already exists (collection metadata, no scan)
+        boolean empty = service.estimatedCount() == 0;
+        
+        ListingsProperties.DataImport dataImport = properties.getDataImport();
+        if (dataImport.getFile() != null && !dataImport.getFile().isBlank()) {
+            if (empty || !dataImport.isOnlyIfEmpty()) {
+                importFile(Path.of(dataImport.getFile()), BulkWriteMode.from(dataImport.getMode()));
+            } else {
+                log.info("Data already exists, skipping import of {}", dataImport.getFile());
+            }
+            return;
+        }
+        
+        if (empty) {
             log.info("Loading sample data...");
             loadSampleData();
             log.info("Sample data loaded successfully!");
@@ -31,6 +51,16 @@ public class DataLoader implements CommandLineRunner {
         }
     }
     
+    private void importFile(Path file, BulkWriteMode mode) throws Exception {
+        BulkIngestReport report = fileImporter.importFile(file, mode);
+        if (report.isSuccessful()) {
+            log.info("Imported {} listings from {}", report.getWritten(), file);
+        } else {
+            log.warn("Imported {} of {} listings from {}: {} failed{}", report.getWritten(), report.getReceived(),
+                    file, report.getFailed(), report.getAborted() != null ? ", " + report.getAborted() : "");
+        }
+    }
+    
     private void loadSampleData() {
         List<ListingAndReview> sampleListings = Arrays.asList(
                 createSampleListing1(),
@@ -38,7 +68,7 @@ public class DataLoader implements CommandLineRunner {
                 createSampleListing3()
         );
         
-        service.saveAll(sampleListings);
+        ingestService.write(sampleListings, BulkWriteMode.INSERT);
     }
     
     private ListingAndReview createSampleListing1() {
@@ -59,8 +89,8 @@ public class DataLoader implements CommandLineRunner {
                 .price(new BigDecimal("150.00"))
                 .cleaningFee(new BigDecimal("50.00"))
                 .securityDeposit(new BigDecimal("100.00"))
-                .minimumNights("2")
-                .maximumNights("30")
+                .minimumNights(2)
+                .maximumNights(30)
                 .numberOfReviews(25)
                 .lastScraped(LocalDateTime.now())
                 .amenities(Arrays.asList("Wifi", "Kitchen", "Air conditioning", "Heating"))
@@ -90,8 +120,8 @@ public class DataLoader implements CommandLineRunner {
                 .price(new BigDecimal("120.00"))
                 .cleaningFee(new BigDecimal("40.00"))
                 .securityDeposit(new BigDecimal("0.00"))
-                .minimumNights("3")
-                .maximumNights("90")
+                .minimumNights(3)
+                .maximumNights(90)
                 .numberOfReviews(15)
                 .lastScraped(LocalDateTime.now())
                 .amenities(Arrays.asList("Wifi", "Kitchen", "Workspace"))
@@ -121,8 +151,8 @@ public class DataLoader implements CommandLineRunner {
                 .price(new BigDecimal("200.00"))
                 .cleaningFee(new BigDecimal("75.00"))
                 .securityDeposit(new BigDecimal("200.00"))
-                .minimumNights("5")
-                .maximumNights("365")
+                .minimumNights(5)
+                .maximumNights(365)
                 .numberOfReviews(40)
                 .lastScraped(LocalDateTime.now())
                 .amenities(Arrays.asList("Wifi", "Kitchen", "Free parking", "Washer", "Dryer"))
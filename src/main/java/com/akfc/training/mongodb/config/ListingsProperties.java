@@ -0,0 +1,226 @@
+package com.akfc.training.mongodb.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "listings")
+public class ListingsProperties {
+    
+    @Valid
+    private final Streaming streaming = new Streaming();
+    private final Pagination pagination = new Pagination();
+    private final Indexes indexes = new Indexes();
+    private final TextSearch textSearch = new TextSearch();
+    private final Bulk bulk = new Bulk();
+    private final DataImport dataImport = new DataImport();
+    private final Metrics metrics = new Metrics();
+    private final ConnectionPool connectionPool = new ConnectionPool();
+    private final Admission admission = new Admission();
+    private final ReadRouting readRouting = new ReadRouting();
+    private final Changes changes = new Changes();
+    private final Stats stats = new Stats();
+    private final Reviews reviews = new Reviews();
+    private final Migrations migrations = new Migrations();
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final ResultCache resultCache = new ResultCache();
+    private final Etags etags = new Etags();
+    
+    @Data
+    public static class Streaming {
+        // Number of documents the server returns per cursor batch (find / getMore)
+        @Positive
+        private int batchSize = 500;
+        
+        // Number of documents written to the response between explicit flushes
+        @Positive
+        private int flushEvery = 100;
+    }
+    
+    @Data
+    public static class Pagination {
+        // Upper bound for ?limit= on keyset-paginated endpoints
+        private int maxLimit = 200;
+    }
+    
+    @Data
+    public static class Indexes {
+        // Diff declared indexes against the collections once the application is ready
+        private boolean reconcile = true;
+        
+        // Create declared indexes that are missing; when false they are only reported
+        private boolean buildMissing = true;
+    }
+    
+    @Data
+    public static class TextSearch {
+        // Stemming / stop-word language of the text index and of queries that don't name one
+        private String defaultLanguage = "english";
+        
+        private int defaultPageSize = 20;
+    }
+    
+    @Data
+    public static class Bulk {
+        // Documents per unordered bulk write
+        private int batchSize = 1000;
+        
+        // Batches written concurrently; the reader blocks once this many are pending
+        private int maxInFlight = 4;
+        
+        // Writer threads shared by all concurrent ingests, and batches queued for them
+        private int writerThreads = 8;
+        private int writerQueueCapacity = 16;
+    }
+    
+    @Data
+    public static class DataImport {
+        // Dump to import at startup (e.g. sample_data/airbnb.json); empty loads the built-in samples
+        private String file;
+        
+        // insert or replace (upsert by _id)
+        private String mode = "insert";
+        
+        // Skip the import when the collection already has documents
+        private boolean onlyIfEmpty = true;
+    }
+    
+    @Data
+    public static class Metrics {
+        // Log Mongo commands slower than the threshold with their filter / pipeline
+        private boolean slowQueryLog = true;
+        
+        // Commands at or above this latency are considered slow
+        private Duration slowQueryThreshold = Duration.ofMillis(200);
+        
+        // Run an asynchronous queryPlanner explain of slow commands and log the winning plan
+        private boolean explainSlowQueries = true;
+    }
+    
+    @Data
+    public static class ConnectionPool {
+        // Connections per server in the driver pool; also the number of admission permits
+        private int maxSize = 100;
+        
+        // Connections kept open when idle
+        private int minSize = 0;
+        
+        // Longest a thread waits in the driver's pool checkout before a timeout error
+        private Duration maxWaitTime = Duration.ofMinutes(2);
+    }
+    
+    @Data
+    public static class Admission {
+        // Queue service calls on a semaphore sized to the connection pool (enable with virtual threads)
+        private boolean enabled = false;
+        
+        // Requests waiting longer than this for a permit are rejected with 503
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+    
+    @Data
+    public static class ReadRouting {
+        // Read preference of searches (find, keyset pages, geo, text)
+        private String search = "secondaryPreferred";
+        
+        // Read preference of full-collection aggregations (statistics)
+        private String analytics = "secondaryPreferred";
+        
+        // Secondaries lagging more than this are not read from (minimum 90s, 0 disables)
+        private Duration maxStaleness = Duration.ofSeconds(90);
+    }
+    
+    @Data
+    public static class Changes {
+        // Tail a change stream on listingsAndReviews for the change listeners (needs a replica set)
+        private boolean enabled = true;
+        
+        // Changes processed between two resume-token checkpoints
+        private int checkpointEvery = 100;
+    }
+    
+    @Data
+    public static class Stats {
+        // Serve /stats/* from materialized collections instead of aggregating on every request;
+        // kept current by the change stream, so only worth enabling on a replica set
+        private boolean materialized = false;
+        
+        // Full $group + $merge rebuild correcting incremental drift
+        private Duration rebuildInterval = Duration.ofHours(1);
+    }
+    
+    @Data
+    public static class Reviews {
+        // Reviews per document in reviewBuckets
+        private int bucketSize = 50;
+        
+        // Most recent reviews kept embedded in the listing document
+        private int embeddedRecent = 10;
+    }
+    
+    @Data
+    public static class Migrations {
+        // Data migrations run in the background once the application is ready (e.g. review-buckets)
+        private List<String> run = new ArrayList<>();
+        
+        // Documents migrated between two pauses
+        private int batchSize = 100;
+        
+        // Pause between batches, leaving room for the regular workload
+        private Duration batchPause = Duration.ofMillis(100);
+    }
+    
+    @Data
+    public static class SpatialIndex {
+        // Answer /map/* searches from an in-process grid kept current by the change stream
+        private boolean enabled = true;
+        
+        // Grid cell size in degrees (0.01 is about 1.1 km of latitude)
+        private double cellSize = 0.01;
+        
+        // Full rebuild from a projected scan, correcting anything the change stream missed
+        private Duration rebuildInterval = Duration.ofMinutes(15);
+        
+        // Upper bound for ?limit= on /map/markers
+        private int maxMarkers = 5000;
+    }
+    
+    @Data
+    public static class SingleFlight {
+        // Concurrent identical reads (findById, searches, aggregations) share one Mongo round trip
+        private boolean enabled = true;
+    }
+    
+    @Data
+    public static class ResultCache {
+        // Cache search and statistics results per collection version (bumped by writes and change events)
+        private boolean enabled = true;
+        
+        // Total size of the cached results, weighed as serialized JSON
+        private DataSize maxWeight = DataSize.ofMegabytes(64);
+        
+        // Upper bound on staleness when other nodes' writes are not seen (no change stream)
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+    
+    @Data
+    public static class Etags {
+        // Strong ETags on GET /{id}, weak collection-version ETags on searches, pages and statistics
+        private boolean enabled = true;
+        
+        // Weak ETags rotate at this interval, bounding revalidation of a response read before a change
+        private Duration weakValidity = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,12 @@
+package com.akfc.training.mongodb.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} maintenance jobs (statistics rebuild).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,22 @@
+package com.akfc.training.mongodb.config;
+
+import com.akfc.training.mongodb.cache.CollectionETagInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the conditional GET handling of {@code @CollectionETag} endpoints.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    
+    private final CollectionETagInterceptor collectionETagInterceptor;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(collectionETagInterceptor);
+    }
+}
@@ -1,18 +1,51 @@
 package com.akfc.training.mongodb.controller;
 
+import com.akfc.training.mongodb.bulk.BulkIngestReport;
+import com.akfc.training.mongodb.bulk.BulkWriteMode;
+import com.akfc.training.mongodb.bulk.ListingIngestService;
+import com.akfc.training.mongodb.cache.CollectionETag;
+import com.akfc.training.mongodb.concurrency.AdmissionRejectedException;
+import com.akfc.training.mongodb.config.BinaryFormatsConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.geo.SpatialEntry;
 import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.Review;
+import com.akfc.training.mongodb.model.projection.FacetedSearchResult;
+import com.akfc.training.mongodb.model.projection.ListingView;
+import com.akfc.training.mongodb.model.projection.NearbyListing;
+import com.akfc.training.mongodb.pagination.KeysetPage;
+import com.akfc.training.mongodb.pagination.KeysetPageRequest;
 import com.akfc.training.mongodb.service.ListingAndReviewService;
+import com.akfc.training.mongodb.service.ReviewService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.geo.Point;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @RestController
@@ -21,17 +54,37 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class ListingAndReviewController {
     
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
     private final ListingAndReviewService service;
+    private final ReviewService reviewService;
+    private final ListingStreamWriter streamWriter;
+    private final RawJsonWriter rawJsonWriter;
+    private final ListingIngestService ingestService;
+    private final ListingsProperties properties;
     
     // ========== Basic CRUD Operations ==========
     
+    // The whole collection is written as a chunked JSON array straight from the cursor, never
+    // held in memory (?stream=true, the former opt-in, is still accepted)
+    @CollectionETag
     @GetMapping
-    public ResponseEntity<List<ListingAndReview>> getAllListings() {
-        log.info("GET /api/listings - Getting all listings");
-        List<ListingAndReview> listings = service.findAll();
-        return ResponseEntity.ok(listings);
+    public ResponseEntity<StreamingResponseBody> getAllListings() {
+        log.info("GET /api/listings - Streaming all listings as a chunked JSON array");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamWriter.jsonArray(service::streamAll));
+    }
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllListingsAsNdjson() {
+        log.info("GET /api/listings - Streaming all listings as NDJSON");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamWriter.ndjson(service::streamAll));
     }
     
+    @CollectionETag
     @GetMapping("/paginated")
     public ResponseEntity<Page<ListingAndReview>> getAllListingsPaginated(
             @RequestParam(defaultValue = "0") int page,
@@ -41,14 +94,109 @@ public class ListingAndReviewController {
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(params = "limit")
+    public ResponseEntity<KeysetPage<?>> getAllListingsKeyset(
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings?limit={} - Getting listings with keyset pagination", pageRequest.getLimit());
+        return ResponseEntity.ok(service.findAllKeyset(pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping("/with-reviews")
+    public ResponseEntity<Page<ListingAndReview>> getListingsWithReviews(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("GET /api/listings/with-reviews - Getting listings with reviews: page={}, size={}", page, size);
+        return ResponseEntity.ok(service.findListingsWithReviews(page, size));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/with-reviews", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getListingsWithReviewsKeyset(
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/with-reviews?limit={} - Getting listings with reviews with keyset pagination",
+                pageRequest.getLimit());
+        return ResponseEntity.ok(service.findListingsWithReviewsKeyset(
+                pageRequest, ListingView.from(view)));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<ListingAndReview> getListingById(@PathVariable String id) {
+    public ResponseEntity<ListingAndReview> getListingById(@PathVariable String id, ServletWebRequest request) {
         log.info("GET /api/listings/{} - Getting listing by id", id);
+        boolean etags = properties.getEtags().isEnabled();
+        if (etags) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (etags && notModified(id, request)) {
+            return null;
+        }
         Optional<ListingAndReview> listing = service.findById(id);
-        return listing.map(ResponseEntity::ok)
+        return listing.map(found -> etags && found.getVersion() != null
+                        ? ResponseEntity.ok().eTag(listingETag(found.getVersion(), request)).body(found)
+                        : ResponseEntity.ok(found))
                      .orElse(ResponseEntity.notFound().build());
     }
     
+    // The stored document transcoded from BSON to relaxed extended JSON, without entity mapping
+    @GetMapping(value = "/{id}", params = "raw=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawListingById(@PathVariable String id,
+                                                                   ServletWebRequest request) {
+        log.info("GET /api/listings/{}?raw=true - Getting raw listing by id", id);
+        boolean etags = properties.getEtags().isEnabled();
+        if (etags && notModified(id, request)) {
+            return null;
+        }
+        return service.findRawById(id)
+                .map(found -> {
+                    BsonValue version = found.get("version");
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+                    if (etags && version != null && version.isNumber()) {
+                        response.eTag(listingETag(version.asNumber().longValue(), request));
+                    }
+                    return response.body(rawJsonWriter.document(found));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Revalidation only reads the stored version; the listing is neither loaded nor serialized
+    private boolean notModified(String id, ServletWebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        Optional<Long> version = service.findVersion(id);
+        return version.isPresent() && request.checkNotModified(listingETag(version.get(), request));
+    }
+    
+    // Strong: the version changes with every write through the service, reviews and migrations.
+    // JSON, CBOR and Smile encodings of one version are different bytes, so they get different tags
+    private static String listingETag(long version, WebRequest request) {
+        return "\"" + version + encodingSuffix(request.getHeader(HttpHeaders.ACCEPT)) + "\"";
+    }
+    
+    // The encoding content negotiation picks for this Accept header: JSON unless a binary one ranks first
+    private static String encodingSuffix(String accept) {
+        if (accept == null) {
+            return "";
+        }
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return "-cbor";
+            }
+            if (type.isCompatibleWith(BinaryFormatsConfig.SMILE)) {
+                return "-smile";
+            }
+        }
+        return "";
+    }
+    
     @PostMapping
     public ResponseEntity<ListingAndReview> createListing(@Valid @RequestBody ListingAndReview listing) {
         log.info("POST /api/listings - Creating new listing: {}", listing.getName());
@@ -61,110 +209,435 @@ public class ListingAndReviewController {
             @PathVariable String id, 
             @Valid @RequestBody ListingAndReview listing) {
         log.info("PUT /api/listings/{} - Updating listing", id);
-        
-        if (!service.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        listing.setId(id);
-        ListingAndReview updatedListing = service.save(listing);
-        return ResponseEntity.ok(updatedListing);
+        return service.replace(id, listing)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ListingAndReview> patchListing(@PathVariable String id, @RequestBody JsonNode patch) {
+        log.info("PATCH /api/listings/{} - Patching listing", id);
+        return service.patch(id, patch)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteListing(@PathVariable String id) {
         log.info("DELETE /api/listings/{} - Deleting listing", id);
-        
-        if (!service.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        service.deleteById(id);
-        return ResponseEntity.noContent().build();
+        return service.deleteById(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+    
+    // ========== Reviews ==========
+    
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<KeysetPage<Review>> getReviews(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET /api/listings/{}/reviews?limit={} - Getting reviews", id, limit);
+        return reviewService.findReviews(id, limit, cursor)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/{id}/reviews")
+    public ResponseEntity<Review> addReview(@PathVariable String id, @RequestBody Review review) {
+        log.info("POST /api/listings/{}/reviews - Adding review", id);
+        return reviewService.addReview(id, review)
+                .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved))
+                .orElse(ResponseEntity.notFound().build());
     }
     
     // ========== Search Operations ==========
     
+    @CollectionETag
     @GetMapping("/search/property-type/{propertyType}")
-    public ResponseEntity<List<ListingAndReview>> getListingsByPropertyType(
-            @PathVariable String propertyType) {
+    public ResponseEntity<List<?>> getListingsByPropertyType(
+            @PathVariable String propertyType,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/property-type/{} - Finding by property type", propertyType);
-        List<ListingAndReview> listings = service.findByPropertyType(propertyType);
+        List<?> listings = service.findByPropertyType(propertyType, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/property-type/{propertyType}", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawListingsByPropertyType(
+            @PathVariable String propertyType,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/property-type/{}?raw=true - Raw listings by property type", propertyType);
+        return rawArray(service.streamRawByPropertyType(propertyType, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/property-type/{propertyType}", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getListingsByPropertyTypeKeyset(
+            @PathVariable String propertyType,
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/property-type/{}?limit={} - Keyset page by property type",
+                propertyType, pageRequest.getLimit());
+        return ResponseEntity.ok(service.findByPropertyTypeKeyset(
+                propertyType, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
     @GetMapping("/search/room-type/{roomType}")
-    public ResponseEntity<List<ListingAndReview>> getListingsByRoomType(
-            @PathVariable String roomType) {
+    public ResponseEntity<List<?>> getListingsByRoomType(
+            @PathVariable String roomType,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/room-type/{} - Finding by room type", roomType);
-        List<ListingAndReview> listings = service.findByRoomType(roomType);
+        List<?> listings = service.findByRoomType(roomType, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/room-type/{roomType}", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawListingsByRoomType(
+            @PathVariable String roomType,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/room-type/{}?raw=true - Raw listings by room type", roomType);
+        return rawArray(service.streamRawByRoomType(roomType, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/room-type/{roomType}", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getListingsByRoomTypeKeyset(
+            @PathVariable String roomType,
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/room-type/{}?limit={} - Keyset page by room type",
+                roomType, pageRequest.getLimit());
+        return ResponseEntity.ok(service.findByRoomTypeKeyset(
+                roomType, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
     @GetMapping("/search/host/{hostName}")
-    public ResponseEntity<List<ListingAndReview>> getListingsByHostName(
-            @PathVariable String hostName) {
+    public ResponseEntity<List<?>> getListingsByHostName(
+            @PathVariable String hostName,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/host/{} - Finding by host name", hostName);
-        List<ListingAndReview> listings = service.findByHostName(hostName);
+        List<?> listings = service.findByHostName(hostName, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/host/{hostName}", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawListingsByHostName(
+            @PathVariable String hostName,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/host/{}?raw=true - Raw listings by host name", hostName);
+        return rawArray(service.streamRawByHostName(hostName, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/host/{hostName}", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getListingsByHostNameKeyset(
+            @PathVariable String hostName,
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/host/{}?limit={} - Keyset page by host name",
+                hostName, pageRequest.getLimit());
+        return ResponseEntity.ok(service.findByHostNameKeyset(
+                hostName, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
     @GetMapping("/search/price-range")
-    public ResponseEntity<List<ListingAndReview>> getListingsByPriceRange(
+    public ResponseEntity<List<?>> getListingsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/price-range - Finding by price range: {} to {}", minPrice, maxPrice);
-        List<ListingAndReview> listings = service.findByPriceRange(minPrice, maxPrice);
+        List<?> listings = service.findByPriceRange(minPrice, maxPrice, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/price-range", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawListingsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/price-range?raw=true - Raw listings by price range: {} to {}",
+                minPrice, maxPrice);
+        return rawArray(service.streamRawByPriceRange(minPrice, maxPrice, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/price-range", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getListingsByPriceRangeKeyset(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/price-range?limit={} - Keyset page by price range: {} to {}",
+                pageRequest.getLimit(), minPrice, maxPrice);
+        return ResponseEntity.ok(service.findByPriceRangeKeyset(
+                minPrice, maxPrice, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
     @GetMapping("/search/superhosts")
-    public ResponseEntity<List<ListingAndReview>> getSuperhostListings() {
+    public ResponseEntity<List<?>> getSuperhostListings(
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/superhosts - Finding superhost listings");
-        List<ListingAndReview> listings = service.findSuperhostListings();
+        List<?> listings = service.findSuperhostListings(ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/superhosts", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRawSuperhostListings(
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/superhosts?raw=true - Raw superhost listings");
+        return rawArray(service.streamRawSuperhostListings(ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/superhosts", params = "limit")
+    public ResponseEntity<KeysetPage<?>> getSuperhostListingsKeyset(
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/superhosts?limit={} - Keyset page of superhost listings",
+                pageRequest.getLimit());
+        return ResponseEntity.ok(service.findSuperhostListingsKeyset(
+                pageRequest, ListingView.from(view)));
+    }
+    
     // ========== Advanced Search with MongoTemplate ==========
     
+    @CollectionETag
     @GetMapping("/search/custom")
-    public ResponseEntity<List<ListingAndReview>> searchListingsCustom(
+    public ResponseEntity<List<?>> searchListingsCustom(
             @RequestParam(required = false) String propertyType,
             @RequestParam(required = false) Integer minAccommodates,
             @RequestParam(required = false) BigDecimal maxPrice,
-            @RequestParam(required = false) String country) {
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/custom - Custom search with criteria");
-        List<ListingAndReview> listings = service.findByCustomCriteria(
-                propertyType, minAccommodates, maxPrice, country);
+        List<?> listings = service.findByCustomCriteria(
+                propertyType, minAccommodates, maxPrice, country, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/custom", params = {"raw=true", "!limit"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> searchListingsCustomRaw(
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/listings/search/custom?raw=true - Custom search returning raw documents");
+        return rawArray(service.streamRawByCustomCriteria(
+                propertyType, minAccommodates, maxPrice, country, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping(value = "/search/custom", params = "limit")
+    public ResponseEntity<KeysetPage<?>> searchListingsCustomKeyset(
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "full") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/custom?limit={} - Custom search with keyset pagination",
+                pageRequest.getLimit());
+        return ResponseEntity.ok(service.findByCustomCriteriaKeyset(
+                propertyType, minAccommodates, maxPrice, country, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping("/search/faceted")
+    public ResponseEntity<FacetedSearchResult> searchListingsFaceted(
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "10") int facetLimit,
+            @RequestParam(defaultValue = "card") String view) {
+        log.info("GET /api/listings/search/faceted - Faceted search");
+        FacetedSearchResult result = service.findByCustomCriteriaFaceted(propertyType, minAccommodates,
+                maxPrice, country, page, size, facetLimit, ListingView.from(view));
+        return ResponseEntity.ok(result);
+    }
+    
+    @CollectionETag
     @GetMapping("/search/near")
-    public ResponseEntity<List<ListingAndReview>> getListingsNearLocation(
+    public ResponseEntity<List<NearbyListing>> getListingsNearLocation(
             @RequestParam double longitude,
             @RequestParam double latitude,
-            @RequestParam(defaultValue = "1000") double maxDistance) {
+            @RequestParam(required = false) Double minDistance,
+            @RequestParam(defaultValue = "1000") double maxDistance,
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/near - Finding listings near location: {}, {}", longitude, latitude);
-        List<ListingAndReview> listings = service.findNearLocation(longitude, latitude, maxDistance);
+        List<NearbyListing> listings = service.findNearLocation(longitude, latitude, minDistance, maxDistance,
+                propertyType, minAccommodates, maxPrice, country, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
+    @CollectionETag
+    @GetMapping(value = "/search/near", params = "limit")
+    public ResponseEntity<KeysetPage<NearbyListing>> getListingsNearLocationKeyset(
+            @RequestParam double longitude,
+            @RequestParam double latitude,
+            @RequestParam(required = false) Double minDistance,
+            @RequestParam(defaultValue = "1000") double maxDistance,
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "card") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/near?limit={} - Finding listings near location: {}, {}",
+                pageRequest.getLimit(), longitude, latitude);
+        return ResponseEntity.ok(service.findNearLocationKeyset(longitude, latitude, minDistance, maxDistance,
+                propertyType, minAccommodates, maxPrice, country, pageRequest, ListingView.from(view)));
+    }
+    
+    @CollectionETag
+    @GetMapping("/search/within/box")
+    public ResponseEntity<KeysetPage<?>> getListingsWithinBox(
+            @RequestParam double minLongitude,
+            @RequestParam double minLatitude,
+            @RequestParam double maxLongitude,
+            @RequestParam double maxLatitude,
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "card") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/within/box - Finding listings in [{}, {}] - [{}, {}]",
+                minLongitude, minLatitude, maxLongitude, maxLatitude);
+        return ResponseEntity.ok(service.findWithinBoxKeyset(minLongitude, minLatitude, maxLongitude, maxLatitude,
+                propertyType, minAccommodates, maxPrice, country, pageRequest, ListingView.from(view)));
+    }
+    
+    // Vertices as "lng,lat;lng,lat;..."
+    @CollectionETag
+    @GetMapping("/search/within/polygon")
+    public ResponseEntity<KeysetPage<?>> getListingsWithinPolygon(
+            @RequestParam String points,
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "card") String view,
+            KeysetPageRequest pageRequest) {
+        log.info("GET /api/listings/search/within/polygon - Finding listings in polygon {}", points);
+        return ResponseEntity.ok(service.findWithinPolygonKeyset(parsePoints(points),
+                propertyType, minAccommodates, maxPrice, country, pageRequest, ListingView.from(view)));
+    }
+    
+    private static List<Point> parsePoints(String points) {
+        try {
+            return Arrays.stream(points.split(";"))
+                    .map(point -> point.split(","))
+                    .map(pair -> new Point(Double.parseDouble(pair[0].trim()), Double.parseDouble(pair[1].trim())))
+                    .toList();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("points must be formatted as lng,lat;lng,lat;...", e);
+        }
+    }
+    
+    // ========== Map Search ==========
+    
+    @GetMapping("/map/viewport")
+    public ResponseEntity<List<?>> getListingsInViewport(
+            @RequestParam double minLongitude,
+            @RequestParam double minLatitude,
+            @RequestParam double maxLongitude,
+            @RequestParam double maxLatitude,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "200") int limit,
+            @RequestParam(defaultValue = "card") String view) {
+        log.info("GET /api/listings/map/viewport - Finding listings in viewport");
+        return ResponseEntity.ok(service.findInViewport(minLongitude, minLatitude, maxLongitude, maxLatitude,
+                roomType, maxPrice, limit, ListingView.from(view)));
+    }
+    
+    @GetMapping("/map/nearest")
+    public ResponseEntity<List<NearbyListing>> getNearestListings(
+            @RequestParam double longitude,
+            @RequestParam double latitude,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) Double minDistance,
+            @RequestParam(defaultValue = "5000") double maxDistance,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "card") String view) {
+        log.info("GET /api/listings/map/nearest - Finding {} listings nearest to {}, {}", k, longitude, latitude);
+        return ResponseEntity.ok(service.findNearest(longitude, latitude, minDistance, maxDistance,
+                roomType, maxPrice, k, ListingView.from(view)));
+    }
+    
+    @GetMapping("/map/markers")
+    public ResponseEntity<List<SpatialEntry>> getMapMarkers(
+            @RequestParam double minLongitude,
+            @RequestParam double minLatitude,
+            @RequestParam double maxLongitude,
+            @RequestParam double maxLatitude,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "${listings.spatial-index.max-markers:5000}") int limit) {
+        log.info("GET /api/listings/map/markers - Finding markers in viewport");
+        return ResponseEntity.ok(service.findMarkers(minLongitude, minLatitude, maxLongitude, maxLatitude,
+                roomType, maxPrice, limit));
+    }
+    
+    @CollectionETag
     @GetMapping("/search/text")
-    public ResponseEntity<List<ListingAndReview>> searchListingsByText(
-            @RequestParam String searchText) {
+    public ResponseEntity<List<?>> searchListingsByText(
+            @RequestParam String searchText,
+            @RequestParam(required = false) String language,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "${listings.text-search.default-page-size:20}") int size,
+            @RequestParam(defaultValue = "full") String view) {
         log.info("GET /api/listings/search/text - Text search: {}", searchText);
-        List<ListingAndReview> listings = service.searchByText(searchText);
+        List<?> listings = service.searchByText(searchText, language, page, size, ListingView.from(view));
         return ResponseEntity.ok(listings);
     }
     
     // ========== Bulk Operations ==========
     
     @PostMapping("/bulk")
-    public ResponseEntity<String> createListingsBulk(@RequestBody List<ListingAndReview> listings) {
-        log.info("POST /api/listings/bulk - Creating {} listings in bulk", listings.size());
-        service.saveAll(listings);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                           .body("Successfully created " + listings.size() + " listings");
+    public ResponseEntity<BulkIngestReport> createListingsBulk(
+            @RequestBody List<ListingAndReview> listings,
+            @RequestParam(defaultValue = "insert") String mode) {
+        log.info("POST /api/listings/bulk - Writing {} listings in bulk (mode={})", listings.size(), mode);
+        BulkIngestReport report = ingestService.write(listings, BulkWriteMode.from(mode));
+        return ResponseEntity.status(report.isSuccessful() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                           .body(report);
+    }
+    
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkIngestReport> ingestListingsBulk(
+            InputStream body,
+            @RequestParam(defaultValue = "insert") String mode) throws IOException {
+        log.info("POST /api/listings/bulk - Streaming NDJSON ingest (mode={})", mode);
+        BulkIngestReport report = ingestService.ingest(body, BulkWriteMode.from(mode));
+        return ResponseEntity.status(report.isSuccessful() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                           .body(report);
     }
     
     @DeleteMapping("/property-type/{propertyType}")
@@ -196,6 +669,7 @@ public class ListingAndReviewController {
     
     // ========== Analytics and Statistics ==========
     
+    @CollectionETag
     @GetMapping("/stats/property-types")
     public ResponseEntity<List<ListingAndReviewService.PropertyTypeStats>> getPropertyTypeStatistics() {
         log.info("GET /api/listings/stats/property-types - Getting property type statistics");
@@ -203,6 +677,7 @@ public class ListingAndReviewController {
         return ResponseEntity.ok(stats);
     }
     
+    @CollectionETag
     @GetMapping("/stats/top-hosts")
     public ResponseEntity<List<ListingAndReviewService.HostStats>> getTopHostsByListings(
             @RequestParam(defaultValue = "10") int limit) {
@@ -211,6 +686,36 @@ public class ListingAndReviewController {
         return ResponseEntity.ok(stats);
     }
     
+    // The cursor is opened here, on the request thread, so the read is admitted and follows the
+    // request's causal token; the response body then streams it
+    private ResponseEntity<StreamingResponseBody> rawArray(Stream<RawBsonDocument> listings) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rawJsonWriter.array(() -> listings));
+    }
+    
+    // ========== Error Handling ==========
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        log.warn("Rejecting request: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    @ExceptionHandler({OptimisticLockingFailureException.class, DuplicateKeyException.class})
+    public ResponseEntity<String> handleConflict(DataAccessException e) {
+        log.warn("Conflicting write: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+    
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleOverload(AdmissionRejectedException e) {
+        log.warn("Shedding request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+    
     // ========== Health Check ==========
     
     @GetMapping("/health")
@@ -0,0 +1,74 @@
+package com.akfc.training.mongodb.controller;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a cursor-backed {@link Stream} to the response one document at a time, either as
+ * newline-delimited JSON or as a chunked JSON array. Only the current document is held in
+ * memory; if the client goes away the write fails and the stream (and its cursor) is closed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingStreamWriter {
+    
+    private final ObjectMapper objectMapper;
+    private final ListingsProperties properties;
+    
+    public StreamingResponseBody ndjson(Supplier<? extends Stream<?>> source) {
+        return out -> {
+            try (Stream<?> documents = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                long written = write(documents.iterator(), generator);
+                generator.writeRaw('\n');
+                log.info("Streamed {} documents as NDJSON", written);
+            }
+        };
+    }
+    
+    public StreamingResponseBody jsonArray(Supplier<? extends Stream<?>> source) {
+        return out -> {
+            try (Stream<?> documents = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                long written = write(documents.iterator(), generator);
+                generator.writeEndArray();
+                log.info("Streamed {} documents as a JSON array", written);
+            }
+        };
+    }
+    
+    private long write(Iterator<?> documents, JsonGenerator generator) throws IOException {
+        // Flushing is batched below rather than after every document
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int flushEvery = properties.getStreaming().getFlushEvery();
+        long written = 0;
+        try {
+            while (documents.hasNext()) {
+                writer.writeValue(generator, documents.next());
+                if (++written % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+        } catch (IOException e) {
+            log.info("Client disconnected after {} streamed documents, closing cursor", written);
+            throw e;
+        }
+        return written;
+    }
+}
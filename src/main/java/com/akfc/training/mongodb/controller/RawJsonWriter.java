@@ -0,0 +1,90 @@
+package com.akfc.training.mongodb.controller;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Transcodes {@link RawBsonDocument}s to relaxed extended JSON on the response: a BSON reader
+ * over the document's bytes is piped into a JSON writer, so field names are written as stored
+ * and no entity, map or intermediate string is allocated per document.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RawJsonWriter {
+    
+    private static final JsonWriterSettings RELAXED = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .build();
+    
+    private final ListingsProperties properties;
+    
+    public StreamingResponseBody document(RawBsonDocument document) {
+        return out -> {
+            Writer writer = writer(out);
+            transcode(document, writer);
+            writer.flush();
+        };
+    }
+    
+    /**
+     * Writes the documents as a JSON array while the cursor yields them, like
+     * {@link ListingStreamWriter#jsonArray}; the stream is closed when the response ends.
+     */
+    public StreamingResponseBody array(Supplier<? extends Stream<RawBsonDocument>> source) {
+        return out -> {
+            try (Stream<RawBsonDocument> documents = source.get()) {
+                Writer writer = writer(out);
+                int flushEvery = properties.getStreaming().getFlushEvery();
+                long written = 0;
+                writer.write('[');
+                try {
+                    Iterator<RawBsonDocument> iterator = documents.iterator();
+                    while (iterator.hasNext()) {
+                        if (written > 0) {
+                            writer.write(',');
+                        }
+                        transcode(iterator.next(), writer);
+                        if (++written % flushEvery == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    log.info("Client disconnected after {} raw documents, closing cursor", written);
+                    throw e;
+                }
+                writer.write(']');
+                writer.flush();
+                log.info("Streamed {} raw documents as a JSON array", written);
+            }
+        };
+    }
+    
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+    
+    private static void transcode(RawBsonDocument document, Writer writer) throws IOException {
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            new JsonWriter(writer, RELAXED).pipe(reader);
+        }
+    }
+}
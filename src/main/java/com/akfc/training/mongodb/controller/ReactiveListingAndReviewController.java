@@ -0,0 +1,152 @@
+package com.akfc.training.mongodb.controller;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.projection.ListingView;
+import com.akfc.training.mongodb.service.ListingAndReviewService;
+import com.akfc.training.mongodb.service.ReactiveListingAndReviewService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Non-blocking read API. Handlers return {@link Flux} / {@link Mono}, so the servlet thread is
+ * released while MongoDB works. With {@code Accept: application/x-ndjson} results are written
+ * one document at a time and the next one is only requested from the cursor once the previous
+ * one is written; with {@code application/json} they are collected into a JSON array.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/reactive/listings")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReactiveListingAndReviewController {
+    
+    private final ReactiveListingAndReviewService service;
+    
+    // ========== Basic Read Operations ==========
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ListingAndReview> streamAllListings() {
+        log.info("GET /api/reactive/listings - Streaming all listings");
+        return service.streamAll();
+    }
+    
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ListingAndReview>> getListingById(@PathVariable String id) {
+        log.info("GET /api/reactive/listings/{} - Getting listing by id", id);
+        return service.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/with-reviews")
+    public Flux<ListingAndReview> getListingsWithReviews(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("GET /api/reactive/listings/with-reviews - page: {}, size: {}", page, size);
+        return service.findListingsWithReviews(page, size);
+    }
+    
+    // ========== Search Operations ==========
+    
+    @GetMapping("/search/property-type/{propertyType}")
+    public Flux<?> getListingsByPropertyType(
+            @PathVariable String propertyType,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/property-type/{}", propertyType);
+        return service.findByPropertyType(propertyType, ListingView.from(view));
+    }
+    
+    @GetMapping("/search/room-type/{roomType}")
+    public Flux<?> getListingsByRoomType(
+            @PathVariable String roomType,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/room-type/{}", roomType);
+        return service.findByRoomType(roomType, ListingView.from(view));
+    }
+    
+    @GetMapping("/search/host/{hostName}")
+    public Flux<?> getListingsByHostName(
+            @PathVariable String hostName,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/host/{}", hostName);
+        return service.findByHostName(hostName, ListingView.from(view));
+    }
+    
+    @GetMapping("/search/price-range")
+    public Flux<?> getListingsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/price-range - min: {}, max: {}", minPrice, maxPrice);
+        return service.findByPriceRange(minPrice, maxPrice, ListingView.from(view));
+    }
+    
+    @GetMapping("/search/superhosts")
+    public Flux<?> getSuperhostListings(@RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/superhosts");
+        return service.findSuperhostListings(ListingView.from(view));
+    }
+    
+    @GetMapping("/search/custom")
+    public Flux<?> searchListingsCustom(
+            @RequestParam(required = false) String propertyType,
+            @RequestParam(required = false) Integer minAccommodates,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/custom - Custom search");
+        return service.findByCustomCriteria(propertyType, minAccommodates, maxPrice, country,
+                ListingView.from(view));
+    }
+    
+    @GetMapping("/search/near")
+    public Flux<?> getListingsNearLocation(
+            @RequestParam double longitude,
+            @RequestParam double latitude,
+            @RequestParam(defaultValue = "1000") double maxDistance,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/near - lon: {}, lat: {}, distance: {}",
+                longitude, latitude, maxDistance);
+        return service.findNearLocation(longitude, latitude, maxDistance, ListingView.from(view));
+    }
+    
+    @GetMapping("/search/text")
+    public Flux<?> searchListingsByText(
+            @RequestParam String searchText,
+            @RequestParam(required = false) String language,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "${listings.text-search.default-page-size:20}") int size,
+            @RequestParam(defaultValue = "full") String view) {
+        log.info("GET /api/reactive/listings/search/text - Search text: {}", searchText);
+        return service.searchByText(searchText, language, page, size, ListingView.from(view));
+    }
+    
+    // ========== Analytics Operations ==========
+    
+    @GetMapping("/stats/property-types")
+    public Flux<ListingAndReviewService.PropertyTypeStats> getPropertyTypeStatistics() {
+        log.info("GET /api/reactive/listings/stats/property-types");
+        return service.getPropertyTypeStatistics();
+    }
+    
+    @GetMapping("/stats/top-hosts")
+    public Flux<ListingAndReviewService.HostStats> getTopHostsByListings(
+            @RequestParam(defaultValue = "10") int limit) {
+        log.info("GET /api/reactive/listings/stats/top-hosts - limit: {}", limit);
+        return service.getTopHostsByListings(limit);
+    }
+    
+    // ========== Error Handling ==========
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
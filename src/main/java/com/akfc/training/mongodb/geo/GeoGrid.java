@@ -0,0 +1,160 @@
+package com.akfc.training.mongodb.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-size longitude / latitude grid of {@link SpatialEntry}. Viewport queries visit the cells
+ * the box overlaps; nearest queries visit the cells of the bounding box of the search circle and
+ * rank the candidates by great-circle distance. When the box spans more cells than are populated
+ * (a whole-continent viewport, a huge radius), the populated cells are scanned instead, so a
+ * query never costs more than one pass over the grid's contents. Not thread-safe.
+ */
+final class GeoGrid {
+    
+    // Radius MongoDB uses for spherical distances, in meters
+    static final double EARTH_RADIUS = 6_378_100;
+    
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS;
+    
+    private final double cellSize;
+    private final int columns;
+    private final Map<Long, List<SpatialEntry>> cells = new HashMap<>();
+    private final Map<Object, SpatialEntry> byId = new HashMap<>();
+    
+    GeoGrid(double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize);
+    }
+    
+    // ========== Updates ==========
+    
+    void put(SpatialEntry entry) {
+        remove(entry.id());
+        byId.put(entry.id(), entry);
+        cells.computeIfAbsent(key(column(entry.longitude()), row(entry.latitude())), k -> new ArrayList<>())
+                .add(entry);
+    }
+    
+    void remove(Object id) {
+        SpatialEntry entry = byId.remove(id);
+        if (entry == null) {
+            return;
+        }
+        long key = key(column(entry.longitude()), row(entry.latitude()));
+        List<SpatialEntry> cell = cells.get(key);
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+    
+    int size() {
+        return byId.size();
+    }
+    
+    // ========== Queries ==========
+    
+    List<SpatialEntry> within(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude,
+                              Predicate<SpatialEntry> filter, int limit) {
+        int firstRow = row(minLatitude);
+        int lastRow = row(maxLatitude);
+        int firstColumn = column(minLongitude);
+        int lastColumn = column(maxLongitude);
+        Iterable<List<SpatialEntry>> candidates = spans(firstRow, lastRow, firstColumn, lastColumn)
+                ? cells.values()
+                : cellsIn(firstRow, lastRow, firstColumn, lastColumn, false);
+        
+        List<SpatialEntry> results = new ArrayList<>();
+        for (List<SpatialEntry> cell : candidates) {
+            for (SpatialEntry entry : cell) {
+                if (entry.longitude() >= minLongitude && entry.longitude() <= maxLongitude
+                        && entry.latitude() >= minLatitude && entry.latitude() <= maxLatitude
+                        && filter.test(entry)) {
+                    results.add(entry);
+                    if (results.size() == limit) {
+                        return results;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+    
+    List<SpatialNeighbor> nearest(double longitude, double latitude, double minDistance, double maxDistance,
+                           Predicate<SpatialEntry> filter, int k) {
+        double latitudeSpan = maxDistance / METERS_PER_DEGREE;
+        double minLatitude = Math.max(-90, latitude - latitudeSpan);
+        double maxLatitude = Math.min(90, latitude + latitudeSpan);
+        // Longitude degrees shrink towards the poles; the widest span is at the latitude nearest one
+        double cosine = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+        double longitudeSpan = cosine > 1e-9 ? latitudeSpan / cosine : 180;
+        
+        int firstColumn = (int) Math.floor((longitude - Math.min(longitudeSpan, 180) + 180) / cellSize);
+        int lastColumn = firstColumn + Math.min(columns - 1, (int) Math.ceil(2 * longitudeSpan / cellSize) + 1);
+        
+        int firstRow = row(minLatitude);
+        int lastRow = row(maxLatitude);
+        Iterable<List<SpatialEntry>> cellsToScan = spans(firstRow, lastRow, firstColumn, lastColumn)
+                ? cells.values()
+                : cellsIn(firstRow, lastRow, firstColumn, lastColumn, true);
+        
+        List<SpatialNeighbor> candidates = new ArrayList<>();
+        for (List<SpatialEntry> cell : cellsToScan) {
+            for (SpatialEntry entry : cell) {
+                double distance = distance(longitude, latitude, entry.longitude(), entry.latitude());
+                if (distance >= minDistance && distance <= maxDistance && filter.test(entry)) {
+                    candidates.add(new SpatialNeighbor(entry, distance));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(SpatialNeighbor::distance));
+        return candidates.size() > k ? new ArrayList<>(candidates.subList(0, k)) : candidates;
+    }
+    
+    // True when the box has more cells than the grid has populated ones
+    private boolean spans(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        return (long) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > cells.size();
+    }
+    
+    // The populated cells of the box, the columns wrapping around the antimeridian when asked to
+    private List<List<SpatialEntry>> cellsIn(int firstRow, int lastRow, int firstColumn, int lastColumn,
+                                             boolean wrap) {
+        List<List<SpatialEntry>> found = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                List<SpatialEntry> cell = cells.get(key(wrap ? Math.floorMod(column, columns) : column, row));
+                if (cell != null) {
+                    found.add(cell);
+                }
+            }
+        }
+        return found;
+    }
+    
+    // Haversine great-circle distance in meters
+    static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(dLatitude / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(dLongitude / 2), 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+    
+    private int column(double longitude) {
+        return Math.min(columns - 1, (int) Math.floor((longitude + 180) / cellSize));
+    }
+    
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSize);
+    }
+    
+    private static long key(int column, int row) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
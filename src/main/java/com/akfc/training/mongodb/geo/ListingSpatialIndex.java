@@ -0,0 +1,243 @@
+package com.akfc.training.mongodb.geo;
+
+import com.akfc.training.mongodb.changes.ListingChange;
+import com.akfc.training.mongodb.changes.ListingChangeListener;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-process grid over the location of every listing, holding only ids and the marker payload
+ * (price, room type), so map viewports and nearest-listing searches are answered without a Mongo
+ * round trip and only the final ids are hydrated.
+ * <p>
+ * The grid is built from a projected scan when the application is ready, again whenever the
+ * change stream resets and every {@code listings.spatial-index.rebuild-interval}, and kept
+ * current from change events in between. Changes arriving during a build are replayed onto
+ * the new grid before it replaces the old one. Until the first build completes
+ * {@link #isReady()} is false and callers query Mongo instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingSpatialIndex implements ListingChangeListener, DisposableBean {
+    
+    private static final String COORDINATES = "address.location.coordinates";
+    
+    private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spatial-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean buildPending = new AtomicBoolean();
+    
+    // Guarded by lock
+    private GeoGrid grid;
+    private List<ListingChange> changedDuringBuild;
+    
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return grid != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // ========== Queries ==========
+    
+    public List<SpatialEntry> within(double minLongitude, double minLatitude, double maxLongitude,
+                                     double maxLatitude, Predicate<SpatialEntry> filter, int limit) {
+        lock.readLock().lock();
+        try {
+            return ready().within(minLongitude, minLatitude, maxLongitude, maxLatitude, filter, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * The k entries nearest to the point within [minDistance, maxDistance] meters, nearest first,
+     * with their distance.
+     */
+    public List<SpatialNeighbor> nearest(double longitude, double latitude, double minDistance, double maxDistance,
+                                  Predicate<SpatialEntry> filter, int k) {
+        lock.readLock().lock();
+        try {
+            return ready().nearest(longitude, latitude, minDistance, maxDistance, filter, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private GeoGrid ready() {
+        if (grid == null) {
+            throw new IllegalStateException("Spatial index is not built yet");
+        }
+        return grid;
+    }
+    
+    // ========== Change events ==========
+    
+    @Override
+    public Set<String> fields() {
+        return Set.of(COORDINATES, "price", "room_type");
+    }
+    
+    @Override
+    public void onChange(ListingChange change) {
+        if (!properties.getSpatialIndex().isEnabled()) {
+            return;
+        }
+        if (!change.isComplete() && change.type() != ListingChange.Type.DELETE) {
+            requestBuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (grid != null) {
+                apply(grid, change);
+            }
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onReset() {
+        requestBuild();
+    }
+    
+    private static void apply(GeoGrid target, ListingChange change) {
+        SpatialEntry entry = change.after() != null ? toEntry(change.id(), change.after()) : null;
+        if (entry != null) {
+            target.put(entry);
+        } else {
+            target.remove(change.id());
+        }
+    }
+    
+    // ========== Build ==========
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnReady() {
+        if (properties.getSpatialIndex().isEnabled()) {
+            requestBuild();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${listings.spatial-index.rebuild-interval:PT15M}",
+            initialDelayString = "${listings.spatial-index.rebuild-interval:PT15M}")
+    public void scheduledBuild() {
+        if (properties.getSpatialIndex().isEnabled()) {
+            requestBuild();
+        }
+    }
+    
+    /**
+     * Queues a build unless one is already waiting to run.
+     */
+    public void requestBuild() {
+        if (buildPending.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                buildPending.set(false);
+                try {
+                    build();
+                } catch (RuntimeException e) {
+                    log.error("Spatial index build failed", e);
+                    lock.writeLock().lock();
+                    changedDuringBuild = null;
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+    }
+    
+    public void build() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        GeoGrid built = new GeoGrid(properties.getSpatialIndex().getCellSize());
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(ListingAndReviewIndexes.COLLECTION)
+                .find()
+                .projection(Projections.include(COORDINATES, "price", "room_type"))
+                .batchSize(properties.getStreaming().getBatchSize())
+                .cursor()) {
+            while (cursor.hasNext()) {
+                Document listing = cursor.next();
+                SpatialEntry entry = toEntry(listing.get("_id"), listing);
+                if (entry != null) {
+                    built.put(entry);
+                }
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild.forEach(change -> apply(built, change));
+            changedDuringBuild = null;
+            grid = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Spatial index built: {} listings in {} ms", built.size(), System.currentTimeMillis() - start);
+    }
+    
+    // Null when the listing has no usable GeoJSON coordinates
+    static SpatialEntry toEntry(Object id, Document listing) {
+        Document address = listing.get("address", Document.class);
+        Document location = address != null ? address.get("location", Document.class) : null;
+        List<?> coordinates = location != null ? location.get("coordinates", List.class) : null;
+        if (coordinates == null || coordinates.size() < 2
+                || !(coordinates.get(0) instanceof Number longitude)
+                || !(coordinates.get(1) instanceof Number latitude)
+                || Math.abs(longitude.doubleValue()) > 180 || Math.abs(latitude.doubleValue()) > 90) {
+            return null;
+        }
+        Object price = listing.get("price");
+        Double value = price instanceof Decimal128 decimal ? Double.valueOf(decimal.doubleValue())
+                : price instanceof Number number ? Double.valueOf(number.doubleValue())
+                : null;
+        String roomType = listing.getString("room_type");
+        return new SpatialEntry(id, longitude.doubleValue(), latitude.doubleValue(), value,
+                roomType != null ? roomType.intern() : null);
+    }
+    
+    @Override
+    public void destroy() {
+        builder.shutdownNow();
+    }
+}
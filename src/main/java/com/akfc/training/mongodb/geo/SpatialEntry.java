@@ -0,0 +1,8 @@
+package com.akfc.training.mongodb.geo;
+
+/**
+ * What the in-process spatial index keeps per listing: its id, position and the fields map
+ * markers are drawn and filtered with. {@code price} is null when the listing has none.
+ */
+public record SpatialEntry(Object id, double longitude, double latitude, Double price, String roomType) {
+}
@@ -0,0 +1,7 @@
+package com.akfc.training.mongodb.geo;
+
+/**
+ * An entry of a nearest-listing search with its great-circle distance in meters.
+ */
+public record SpatialNeighbor(SpatialEntry entry, double distance) {
+}
@@ -0,0 +1,35 @@
+package com.akfc.training.mongodb.index;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.stats.MaterializedStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Index of the materialized host statistics, read as a top-N by listing count. Declared only
+ * with {@code listings.stats.materialized=true}; otherwise the collection is never read.
+ */
+@Component
+@RequiredArgsConstructor
+public class HostStatsIndexes implements IndexDeclaration {
+    
+    private final ListingsProperties properties;
+    
+    @Override
+    public String collection() {
+        return MaterializedStats.HOSTS;
+    }
+    
+    @Override
+    public List<IndexDefinition> indexes() {
+        if (!properties.getStats().isMaterialized()) {
+            return List.of();
+        }
+        return List.of(new Index().on("listingCount", Sort.Direction.DESC));
+    }
+}
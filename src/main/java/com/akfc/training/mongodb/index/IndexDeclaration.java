@@ -0,0 +1,16 @@
+package com.akfc.training.mongodb.index;
+
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+
+import java.util.List;
+
+/**
+ * Indexes a collection is expected to have. Every declaration bean is reconciled against the
+ * live collection at startup by {@link IndexReconciler}.
+ */
+public interface IndexDeclaration {
+    
+    String collection();
+    
+    List<IndexDefinition> indexes();
+}
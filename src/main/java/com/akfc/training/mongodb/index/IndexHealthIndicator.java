@@ -0,0 +1,34 @@
+package com.akfc.training.mongodb.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the last index reconciliation under /actuator/health. Drift is reported as details
+ * rather than DOWN: a missing index makes queries slow, not the instance unusable.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexHealthIndicator implements HealthIndicator {
+    
+    private final IndexReconciler reconciler;
+    
+    @Override
+    public Health health() {
+        IndexReport report = reconciler.getLastReport();
+        if (report == null) {
+            return Health.unknown().withDetail("reason", "Reconciliation has not run yet").build();
+        }
+        return Health.up()
+                .withDetail("reconciledAt", report.getReconciledAt())
+                .withDetail("clean", report.isClean())
+                .withDetail("missing", report.getMissing())
+                .withDetail("built", report.getBuilt())
+                .withDetail("failed", report.getFailed())
+                .withDetail("drifted", report.getDrifted())
+                .withDetail("undeclared", report.getUndeclared())
+                .build();
+    }
+}
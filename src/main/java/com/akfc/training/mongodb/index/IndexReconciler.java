@@ -0,0 +1,167 @@
+package com.akfc.training.mongodb.index;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Diffs the declared {@link IndexDeclaration}s against {@code listIndexes} once the application
+ * is ready. Missing indexes are built off the startup path; option drift and indexes nobody
+ * declared are only reported, never dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexReconciler {
+    
+    private static final List<String> COMPARED_OPTIONS = List.of(
+            "unique", "sparse", "partialFilterExpression", "expireAfterSeconds", "weights", "default_language");
+    
+    private final MongoTemplate mongoTemplate;
+    private final List<IndexDeclaration> declarations;
+    private final ListingsProperties properties;
+    
+    private volatile IndexReport lastReport;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (!properties.getIndexes().isReconcile()) {
+            log.info("Index reconciliation is disabled");
+            return;
+        }
+        new SimpleAsyncTaskExecutor("index-reconciler-").execute(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.error("Index reconciliation failed", e);
+            }
+        });
+    }
+    
+    public IndexReport reconcile() {
+        IndexReport report = new IndexReport();
+        
+        for (IndexDeclaration declaration : declarations) {
+            String collection = declaration.collection();
+            List<Document> existing = mongoTemplate.getCollection(collection)
+                    .listIndexes()
+                    .into(new ArrayList<>());
+            List<Document> matched = new ArrayList<>();
+            
+            for (IndexDefinition definition : declaration.indexes()) {
+                String label = collection + ": " + definition.getIndexKeys().toJson();
+                Optional<Document> current = existing.stream()
+                        .filter(index -> sameKeys(definition, index))
+                        .findFirst();
+                
+                if (current.isEmpty()) {
+                    report.getMissing().add(label);
+                    if (properties.getIndexes().isBuildMissing()) {
+                        build(collection, definition, label, report);
+                    }
+                    continue;
+                }
+                
+                matched.add(current.get());
+                List<String> differences = optionDifferences(definition.getIndexOptions(), current.get());
+                if (!differences.isEmpty()) {
+                    report.getDrifted().add(label + " " + differences);
+                    log.warn("Index drift on {} (index '{}'): {}",
+                            label, current.get().getString("name"), differences);
+                }
+            }
+            
+            existing.stream()
+                    .filter(index -> !"_id_".equals(index.getString("name")))
+                    .filter(index -> !matched.contains(index))
+                    .forEach(index -> {
+                        report.getUndeclared().add(collection + ": " + index.getString("name"));
+                        log.warn("Index '{}' on {} is not declared in code", index.getString("name"), collection);
+                    });
+        }
+        
+        log.info("Index reconciliation finished: {} missing ({} built, {} failed), {} drifted, {} undeclared",
+                report.getMissing().size(), report.getBuilt().size(), report.getFailed().size(),
+                report.getDrifted().size(), report.getUndeclared().size());
+        lastReport = report;
+        return report;
+    }
+    
+    public IndexReport getLastReport() {
+        return lastReport;
+    }
+    
+    private void build(String collection, IndexDefinition definition, String label, IndexReport report) {
+        log.info("Building missing index {}", label);
+        try {
+            String name = mongoTemplate.indexOps(collection).createIndex(definition);
+            report.getBuilt().add(label);
+            log.info("Built index '{}' on {}", name, collection);
+        } catch (RuntimeException e) {
+            report.getFailed().add(label + ": " + e.getMessage());
+            log.error("Failed to build index {}", label, e);
+        }
+    }
+    
+    private static boolean sameKeys(IndexDefinition definition, Document index) {
+        Document declared = definition.getIndexKeys();
+        Document actual = index.get("key", Document.class);
+        
+        // Text indexes are listed as {_fts: "text", _ftsx: 1}, their fields live in "weights"
+        if (declared.containsValue("text")) {
+            Document weights = index.get("weights", Document.class);
+            return actual.containsKey("_fts") && weights != null
+                    && weights.keySet().equals(Set.copyOf(declared.keySet()));
+        }
+        return normalize(declared).equals(normalize(actual));
+    }
+    
+    // Key order matters for compound indexes; numeric directions may come back as int, long or double
+    private static List<Map.Entry<String, Object>> normalize(Document keys) {
+        return keys.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue() instanceof Number number
+                        ? (Object) number.intValue()
+                        : entry.getValue()))
+                .collect(Collectors.toList());
+    }
+    
+    private static List<String> optionDifferences(Document declared, Document actual) {
+        List<String> differences = new ArrayList<>();
+        for (String option : COMPARED_OPTIONS) {
+            Object expected = comparable(declared.get(option));
+            Object found = comparable(actual.get(option));
+            if (!Objects.equals(expected, found)) {
+                differences.add(option + ": declared=" + expected + ", found=" + found);
+            }
+        }
+        return differences;
+    }
+    
+    private static Object comparable(Object value) {
+        if (value instanceof Document document) {
+            Map<String, Object> sorted = new TreeMap<>();
+            document.forEach((key, nested) -> sorted.put(key, comparable(nested)));
+            return sorted;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return Boolean.FALSE.equals(value) ? null : value;
+    }
+}
@@ -0,0 +1,32 @@
+package com.akfc.training.mongodb.index;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of the last reconciliation, entries are "collection: index keys".
+ */
+@Data
+public class IndexReport {
+    
+    private Instant reconciledAt = Instant.now();
+    
+    // Declared but absent from the collection
+    private final List<String> missing = new ArrayList<>();
+    
+    // Present with the declared keys but different options (unique, partial filter, ...)
+    private final List<String> drifted = new ArrayList<>();
+    
+    // Present on the collection but not declared in code
+    private final List<String> undeclared = new ArrayList<>();
+    
+    private final List<String> built = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+    
+    public boolean isClean() {
+        return missing.size() == built.size() && drifted.isEmpty() && failed.isEmpty();
+    }
+}
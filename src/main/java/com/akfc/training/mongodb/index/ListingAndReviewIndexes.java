@@ -0,0 +1,70 @@
+package com.akfc.training.mongodb.index;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Indexes backing the query paths of the listingsAndReviews collection.
+ */
+@Component
+@RequiredArgsConstructor
+public class ListingAndReviewIndexes implements IndexDeclaration {
+    
+    public static final String COLLECTION = "listingsAndReviews";
+    
+    private final ListingsProperties properties;
+    
+    @Override
+    public String collection() {
+        return COLLECTION;
+    }
+    
+    @Override
+    public List<IndexDefinition> indexes() {
+        return List.of(
+                // Custom search: equality on property_type, sort on price, range on accommodates (ESR)
+                new Index()
+                        .on("property_type", Sort.Direction.ASC)
+                        .on("price", Sort.Direction.ASC)
+                        .on("accommodates", Sort.Direction.ASC),
+                
+                // Price range search and keyset pages sorted by price
+                new Index()
+                        .on("price", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC),
+                
+                new Index().on("room_type", Sort.Direction.ASC),
+                new Index().on("host.host_id", Sort.Direction.ASC),
+                new Index().on("host.host_name", Sort.Direction.ASC),
+                new Index().on("address.market", Sort.Direction.ASC),
+                new Index().on("number_of_reviews", Sort.Direction.ASC),
+                
+                // Only the documents the superhost queries can match are indexed
+                new Index()
+                        .on("host.host_is_superhost", Sort.Direction.ASC)
+                        .partial(PartialIndexFilter.of(Criteria.where("host.host_is_superhost").is(true))),
+                
+                new GeospatialIndex("address.location").typed(GeoSpatialIndexType.GEO_2DSPHERE),
+                
+                // Full-text search, a match in the name outranks one in the description
+                new TextIndexDefinition.TextIndexDefinitionBuilder()
+                        .onField("name", 10F)
+                        .onField("summary", 5F)
+                        .onField("description", 2F)
+                        .onField("neighborhood_overview", 1F)
+                        .withDefaultLanguage(properties.getTextSearch().getDefaultLanguage())
+                        .build()
+        );
+    }
+}
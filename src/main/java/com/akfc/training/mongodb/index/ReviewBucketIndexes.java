@@ -0,0 +1,29 @@
+package com.akfc.training.mongodb.index;
+
+import com.akfc.training.mongodb.model.ReviewBucket;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Buckets are read in descending {@code seq} order per listing, and new reviews go to the
+ * listing's highest-numbered bucket; both lookups walk this index.
+ */
+@Component
+public class ReviewBucketIndexes implements IndexDeclaration {
+    
+    @Override
+    public String collection() {
+        return ReviewBucket.COLLECTION;
+    }
+    
+    @Override
+    public List<IndexDefinition> indexes() {
+        return List.of(new Index()
+                .on("listing_id", Sort.Direction.ASC)
+                .on("seq", Sort.Direction.DESC));
+    }
+}
@@ -0,0 +1,124 @@
+package com.akfc.training.mongodb.metrics;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver-level command listener recording, per command and originating service method:
+ * <ul>
+ *     <li>{@code listings.mongo.command} - latency histogram</li>
+ *     <li>{@code listings.mongo.documents} - documents returned by find / aggregate / getMore</li>
+ * </ul>
+ * Commands slower than {@code listings.metrics.slow-query-threshold} are handed to the
+ * {@link SlowQueryLogger}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoCommandMetrics implements CommandListener {
+    
+    // Commands whose body is kept until completion so a slow one can be logged and explained
+    private static final Set<String> EXPLAINABLE = Set.of(
+            "find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+    
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLogger slowQueryLogger;
+    private final ListingsProperties properties;
+    
+    private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+    
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        BsonDocument command = properties.getMetrics().isSlowQueryLog() && EXPLAINABLE.contains(commandName)
+                // Only valid during the callback, hence the copy
+                ? event.getCommand().clone()
+                : null;
+        inFlight.put(event.getRequestId(), new InFlight(ServiceOperationContext.current(),
+                collection(commandName, event.getCommand()), command));
+    }
+    
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        record(event.getCommandName(), started, "success", nanos);
+        
+        int returned = returnedDocuments(event.getResponse());
+        if (returned >= 0) {
+            DistributionSummary.builder("listings.mongo.documents")
+                    .description("Documents returned per Mongo command")
+                    .tag("command", event.getCommandName())
+                    .tag("method", started.method())
+                    .register(meterRegistry)
+                    .record(returned);
+        }
+        
+        Duration threshold = properties.getMetrics().getSlowQueryThreshold();
+        if (properties.getMetrics().isSlowQueryLog() && nanos >= threshold.toNanos()) {
+            slowQueryLogger.slowCommand(event.getCommandName(), started.method(), started.collection(),
+                    started.command(), Duration.ofNanos(nanos), returned);
+        }
+    }
+    
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started != null) {
+            record(event.getCommandName(), started, "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+    
+    private void record(String commandName, InFlight started, String status, long nanos) {
+        Timer.builder("listings.mongo.command")
+                .description("Latency of Mongo commands by originating service method")
+                .tag("command", commandName)
+                .tag("collection", started.collection())
+                .tag("method", started.method())
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private static String collection(String commandName, BsonDocument command) {
+        BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "none";
+    }
+    
+    private static int returnedDocuments(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor == null || !cursor.isDocument()) {
+            return -1;
+        }
+        BsonDocument cursorDocument = cursor.asDocument();
+        BsonValue batch = cursorDocument.containsKey("firstBatch")
+                ? cursorDocument.get("firstBatch")
+                : cursorDocument.get("nextBatch");
+        return batch instanceof BsonArray array ? array.size() : -1;
+    }
+    
+    private record InFlight(String method, String collection, BsonDocument command) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.akfc.training.mongodb.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public {@code ListingAndReviewService} method and publishes its name to
+ * {@link ServiceOperationContext} for the Mongo commands it issues. Comparing
+ * {@code listings.service.method} with {@code listings.mongo.command} for the same method
+ * separates time spent in MongoDB from time spent mapping results.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceOperationAspect {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Around("execution(public * com.akfc.training.mongodb.service.ListingAndReviewService.*(..))"
+            + " || execution(public * com.akfc.training.mongodb.service.ReviewService.*(..))")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Nested calls keep the outermost method as the origin
+        if (ServiceOperationContext.isActive()) {
+            return joinPoint.proceed();
+        }
+        
+        String method = joinPoint.getSignature().getName();
+        ServiceOperationContext.set(method);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            ServiceOperationContext.clear();
+            sample.stop(Timer.builder("listings.service.method")
+                    .description("Latency of ListingAndReviewService methods, Mongo round trips and mapping included")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.akfc.training.mongodb.metrics;
+
+/**
+ * Name of the service method running on the current thread, so driver events (which carry no
+ * application context) can be attributed to it. The synchronous driver publishes command
+ * events on the calling thread.
+ */
+public final class ServiceOperationContext {
+    
+    public static final String NONE = "none";
+    
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    
+    private ServiceOperationContext() {
+    }
+    
+    public static String current() {
+        String operation = CURRENT.get();
+        return operation != null ? operation : NONE;
+    }
+    
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+    
+    static void set(String operation) {
+        CURRENT.set(operation);
+    }
+    
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,112 @@
+package com.akfc.training.mongodb.metrics;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs slow Mongo commands with their filter / pipeline and, when enabled, the query planner's
+ * winning plan. The explain runs on a single background thread with a small queue so a burst
+ * of slow queries never adds load to the request path; extra explains are dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlowQueryLogger implements DisposableBean {
+    
+    private static final int MAX_LOGGED_LENGTH = 2000;
+    
+    // Session, cluster time and routing fields the explain command must not carry
+    private static final Set<String> GENERIC_FIELDS = Set.of("lsid", "txnNumber", "autocommit", "startTransaction");
+    
+    // The MongoTemplate is built on the client this logger listens to, so it is resolved lazily
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ListingsProperties properties;
+    
+    private final ExecutorService explainer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    public void slowCommand(String commandName, String method, String collection,
+                            BsonDocument command, Duration elapsed, int returned) {
+        meterRegistry.counter("listings.mongo.slow", "command", commandName, "method", method).increment();
+        
+        if (command == null) {
+            log.warn("Slow Mongo command {} on {} from {}: {} ms", commandName, collection, method, elapsed.toMillis());
+            return;
+        }
+        
+        BsonDocument stripped = strip(command);
+        log.warn("Slow Mongo command {} on {} from {}: {} ms, {} documents returned, command={}",
+                commandName, collection, method, elapsed.toMillis(), returned, truncate(stripped.toJson()));
+        
+        if (properties.getMetrics().isExplainSlowQueries() && !"explain".equals(commandName)) {
+            try {
+                explainer.execute(() -> explain(commandName, method, stripped));
+            } catch (RejectedExecutionException e) {
+                log.debug("Explain queue full, skipping explain of slow {} from {}", commandName, method);
+            }
+        }
+    }
+    
+    private void explain(String commandName, String method, BsonDocument command) {
+        try {
+            Document explain = mongoTemplate.getObject().getDb().runCommand(
+                    new Document("explain", command).append("verbosity", "queryPlanner"));
+            Object plan = winningPlan(explain);
+            log.warn("Plan of slow {} from {}: {}", commandName, method,
+                    truncate(plan instanceof Document document ? document.toJson() : String.valueOf(plan)));
+        } catch (RuntimeException e) {
+            log.warn("Could not explain slow {} from {}: {}", commandName, method, e.getMessage());
+        }
+    }
+    
+    private static Object winningPlan(Document explain) {
+        Document planner = explain.get("queryPlanner", Document.class);
+        if (planner == null && explain.get("stages") instanceof List<?> stages && !stages.isEmpty()
+                && stages.get(0) instanceof Document first && first.get("$cursor") instanceof Document cursor) {
+            // Aggregations report the plan of their initial $cursor stage
+            planner = cursor.get("queryPlanner", Document.class);
+        }
+        return planner != null ? planner.get("winningPlan") : explain;
+    }
+    
+    private static BsonDocument strip(BsonDocument command) {
+        BsonDocument stripped = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !GENERIC_FIELDS.contains(key)) {
+                stripped.append(key, value);
+            }
+        });
+        return stripped;
+    }
+    
+    private static String truncate(String json) {
+        return json.length() <= MAX_LOGGED_LENGTH ? json : json.substring(0, MAX_LOGGED_LENGTH) + "...";
+    }
+    
+    @Override
+    public void destroy() {
+        explainer.shutdownNow();
+    }
+}
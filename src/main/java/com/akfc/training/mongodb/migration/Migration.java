@@ -0,0 +1,14 @@
+package com.akfc.training.mongodb.migration;
+
+/**
+ * A data migration run online by {@link MigrationRunner} when its name is listed in
+ * {@code listings.migrations.run}. Implementations must be idempotent and resumable: they are
+ * rerun from scratch after a restart and skip documents that are already migrated.
+ */
+public interface Migration {
+    
+    String name();
+    
+    // Returns the number of documents migrated by this run
+    long run();
+}
@@ -0,0 +1,57 @@
+package com.akfc.training.mongodb.migration;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the migrations named in {@code listings.migrations.run}, in that order, on a background
+ * thread once the application serves traffic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrationRunner {
+    
+    private final List<Migration> migrations;
+    private final ListingsProperties properties;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<String> names = properties.getMigrations().getRun();
+        if (names.isEmpty()) {
+            return;
+        }
+        Map<String, Migration> byName = migrations.stream()
+                .collect(Collectors.toMap(Migration::name, Function.identity()));
+        Thread thread = new Thread(() -> runAll(names, byName), "migrations");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void runAll(List<String> names, Map<String, Migration> byName) {
+        for (String name : names) {
+            Migration migration = byName.get(name);
+            if (migration == null) {
+                log.warn("Unknown migration {}, known: {}", name, byName.keySet());
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                long migrated = migration.run();
+                log.info("Migration {} done: {} documents in {} ms", name, migrated,
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Migration {} failed, it resumes on the next start", name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.akfc.training.mongodb.migration;
+
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.akfc.training.mongodb.model.ListingNumericFields;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites listings whose money fields are not Decimal128 or whose night counts are not int32
+ * (see {@link ListingNumericFields}). Each batch is one pipeline update over the batch's ids,
+ * converting with {@code $convert} and keeping values that do not convert, so the migration can
+ * be interrupted and rerun at any time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NumericTypesMigration implements Migration {
+    
+    public static final String NAME = "numeric-types";
+    
+    private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    private final CacheManager cacheManager;
+    private final CollectionVersion collectionVersion;
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    @Override
+    public long run() {
+        ListingsProperties.Migrations settings = properties.getMigrations();
+        MongoCollection<Document> listings = mongoTemplate.getCollection(ListingAndReviewIndexes.COLLECTION);
+        List<Document> pipeline = List.of(new Document("$set", conversions()));
+        
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            // Keyset on _id, so values that never convert are not revisited
+            Bson pending = needsConversion();
+            Bson filter = lastId == null ? pending : Filters.and(Filters.gt("_id", lastId), pending);
+            List<Object> ids = listings.find(filter)
+                    .projection(Projections.include("_id"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(settings.getBatchSize())
+                    .map(document -> document.get("_id"))
+                    .into(new ArrayList<>());
+            if (ids.isEmpty()) {
+                reportUnconverted(listings);
+                return migrated;
+            }
+            migrated += listings.updateMany(Filters.in("_id", ids), pipeline).getModifiedCount();
+            evict(ids);
+            lastId = ids.get(ids.size() - 1);
+            log.info("Numeric types: {} listings migrated, last id {}", migrated, lastId);
+            pause(settings);
+        }
+    }
+    
+    // Values that are not numbers at all (e.g. "n/a") cannot be converted and are left as stored
+    private static void reportUnconverted(MongoCollection<Document> listings) {
+        long unconverted = listings.countDocuments(needsConversion());
+        if (unconverted > 0) {
+            log.warn("Numeric types: {} listings keep non-numeric values in numeric fields, left as stored",
+                    unconverted);
+        }
+    }
+    
+    private static Bson needsConversion() {
+        List<Bson> filters = new ArrayList<>();
+        ListingNumericFields.DECIMAL.forEach(field -> filters.add(typeIn(field, ListingNumericFields.NON_DECIMAL_TYPES)));
+        ListingNumericFields.INT32.forEach(field -> filters.add(typeIn(field, ListingNumericFields.NON_INT32_TYPES)));
+        return Filters.or(filters);
+    }
+    
+    private static Bson typeIn(String field, List<String> types) {
+        return new Document(field, new Document("$type", types));
+    }
+    
+    private static Document conversions() {
+        Document set = new Document();
+        ListingNumericFields.DECIMAL.forEach(field ->
+                set.append(field, convert(field, ListingNumericFields.NON_DECIMAL_TYPES, "decimal")));
+        ListingNumericFields.INT32.forEach(field ->
+                set.append(field, convertToInt32(field, ListingNumericFields.NON_INT32_TYPES)));
+        // The stored representation changes, so does the optimistic-lock version
+        return set.append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1)));
+    }
+    
+    // Converts values of the listed types, leaves other and missing values untouched
+    private static Document convert(String field, List<String> types, String to) {
+        String value = "$" + field;
+        return new Document("$cond", List.of(
+                new Document("$in", List.of(new Document("$type", value), types)),
+                new Document("$convert", new Document("input", value).append("to", to)
+                        .append("onError", value).append("onNull", value)),
+                value));
+    }
+    
+    // As ListingNumericFields.normalize: rounded to a whole number and clamped to the int32 range
+    private static Document convertToInt32(String field, List<String> types) {
+        String value = "$" + field;
+        Document number = new Document("$convert", new Document("input", value).append("to", "decimal")
+                .append("onError", null).append("onNull", null));
+        Document clamped = new Document("$toInt", new Document("$min", List.of(
+                new Document("$max", List.of(new Document("$round", List.of("$$number", 0)), Integer.MIN_VALUE)),
+                Integer.MAX_VALUE)));
+        return new Document("$cond", List.of(
+                new Document("$in", List.of(new Document("$type", value), types)),
+                new Document("$let", new Document("vars", new Document("number", number))
+                        .append("in", new Document("$cond", List.of(
+                                new Document("$eq", List.of("$$number", null)), value, clamped)))),
+                value));
+    }
+    
+    private void evict(List<Object> ids) {
+        collectionVersion.bump();
+        Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+    
+    private void pause(ListingsProperties.Migrations settings) {
+        try {
+            Thread.sleep(settings.getBatchPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+}
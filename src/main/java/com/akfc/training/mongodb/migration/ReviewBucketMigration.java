@@ -0,0 +1,211 @@
+package com.akfc.training.mongodb.migration;
+
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.ReviewBucket;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moves the embedded reviews of listings into {@code reviewBuckets} and keeps only the most
+ * recent ones (newest first) in the listing, which is then flagged {@code reviews_bucketed}.
+ * <p>
+ * A listing is migrated from a snapshot of its reviews: the buckets get deterministic ids
+ * ({@code <listing id>:<n>}) and are replaced, so a rerun rewrites the same buckets; the listing
+ * is only trimmed and flagged if its reviews still have the snapshot's size. Listings are
+ * migrated on first access by {@code ReviewService} and in batches by {@link #run()}, which
+ * also numbers buckets written before buckets carried their {@code seq}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewBucketMigration implements Migration {
+    
+    public static final String NAME = "review-buckets";
+    
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Comparator<Document> BY_DATE = Comparator.comparing(
+            (Document review) -> review.getDate("date"), Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    private final CacheManager cacheManager;
+    private final CollectionVersion collectionVersion;
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    // ========== Batch migration ==========
+    
+    @Override
+    public long run() {
+        numberBuckets();
+        ListingsProperties.Migrations settings = properties.getMigrations();
+        MongoCollection<Document> listings = listings();
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Bson pending = Filters.ne("reviews_bucketed", true);
+            Bson filter = lastId == null ? pending : Filters.and(Filters.gt("_id", lastId), pending);
+            List<Object> ids = listings.find(filter)
+                    .projection(Projections.include("_id"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(settings.getBatchSize())
+                    .map(document -> document.get("_id"))
+                    .into(new ArrayList<>());
+            if (ids.isEmpty()) {
+                return migrated;
+            }
+            for (Object id : ids) {
+                if (migrate(id)) {
+                    migrated++;
+                }
+            }
+            lastId = ids.get(ids.size() - 1);
+            log.info("Review buckets: {} listings migrated, last id {}", migrated, lastId);
+            pause(settings);
+        }
+    }
+    
+    // Buckets written by earlier migrations carry their number only in their id (<listing id>:<n>)
+    private void numberBuckets() {
+        long numbered = mongoTemplate.getCollection(ReviewBucket.COLLECTION).updateMany(
+                Filters.and(Filters.exists("seq", false), Filters.type("_id", BsonType.STRING)),
+                List.of(new Document("$set", new Document("seq", new Document("$toInt",
+                        new Document("$arrayElemAt", List.of(new Document("$split", List.of("$_id", ":")), -1)))))))
+                .getModifiedCount();
+        if (numbered > 0) {
+            log.info("Review buckets: {} buckets numbered", numbered);
+        }
+    }
+    
+    // ========== Single listing ==========
+    
+    /**
+     * Migrates one listing if it is not migrated yet. Returns false when the listing does not exist.
+     */
+    public boolean migrate(Object listingId) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Document listing = listings().find(Filters.eq("_id", listingId))
+                    .projection(Projections.include("reviews", "reviews_bucketed"))
+                    .first();
+            if (listing == null) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(listing.getBoolean("reviews_bucketed"))) {
+                return true;
+            }
+            if (tryMigrate(listingId, listing.getList("reviews", Document.class, List.of()))) {
+                evict(listingId);
+                return true;
+            }
+            log.debug("Reviews of listing {} changed during migration, attempt {}", listingId, attempt);
+        }
+        throw new IllegalStateException("Listing " + listingId + " kept changing during the review migration");
+    }
+    
+    /**
+     * Splits the full review list of a listing into its buckets ({@code seq} 0, 1, ... in date
+     * order) and the most recent reviews the listing embeds (newest first). The bulk writer
+     * stores listings it writes with their reviews the same way.
+     */
+    public Split split(Object listingId, List<Document> all) {
+        List<Document> reviews = new ArrayList<>(all);
+        reviews.sort(BY_DATE);
+        
+        int bucketSize = properties.getReviews().getBucketSize();
+        List<Document> buckets = new ArrayList<>();
+        for (int from = 0, seq = 0; from < reviews.size(); from += bucketSize, seq++) {
+            List<Document> chunk = reviews.subList(from, Math.min(from + bucketSize, reviews.size()));
+            buckets.add(new Document("_id", ReviewBucket.id(listingId, seq))
+                    .append("listing_id", listingId)
+                    .append("seq", seq)
+                    .append("count", chunk.size())
+                    .append("first_date", chunk.get(0).getDate("date"))
+                    .append("last_date", chunk.get(chunk.size() - 1).getDate("date"))
+                    .append("reviews", chunk));
+        }
+        
+        List<Document> recent = new ArrayList<>(reviews.subList(
+                Math.max(0, reviews.size() - properties.getReviews().getEmbeddedRecent()), reviews.size()));
+        Collections.reverse(recent);
+        return new Split(buckets, recent, reviews.size());
+    }
+    
+    private boolean tryMigrate(Object listingId, List<Document> embedded) {
+        Split split = split(listingId, embedded);
+        MongoCollection<Document> buckets = mongoTemplate.getCollection(ReviewBucket.COLLECTION);
+        for (Document bucket : split.buckets()) {
+            // A bucket holding more reviews than the snapshot was written by a migration that
+            // finished first and has since received new reviews: leave it alone
+            try {
+                buckets.replaceOne(Filters.and(Filters.eq("_id", bucket.get("_id")),
+                                Filters.lte("count", bucket.getInteger("count"))),
+                        bucket, new ReplaceOptions().upsert(true));
+            } catch (MongoWriteException e) {
+                if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                    return false;
+                }
+                throw e;
+            }
+        }
+        
+        Bson unchanged = split.total() == 0
+                ? Filters.or(Filters.exists("reviews", false), Filters.size("reviews", 0))
+                : Filters.size("reviews", split.total());
+        long modified = listings().updateOne(
+                Filters.and(Filters.eq("_id", listingId), Filters.ne("reviews_bucketed", true), unchanged),
+                Updates.combine(Updates.set("reviews", split.recent()), Updates.set("reviews_bucketed", true),
+                        Updates.inc("version", 1)))
+                .getModifiedCount();
+        return modified == 1;
+    }
+    
+    public record Split(List<Document> buckets, List<Document> recent, int total) {
+    }
+    
+    private MongoCollection<Document> listings() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(ListingAndReview.class));
+    }
+    
+    private void evict(Object listingId) {
+        collectionVersion.bump();
+        Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+        if (cache != null) {
+            cache.evict(listingId);
+        }
+    }
+    
+    private void pause(ListingsProperties.Migrations settings) {
+        try {
+            Thread.sleep(settings.getBatchPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.akfc.training.mongodb.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,6 +26,10 @@ public class ListingAndReview {
     @Id
     private String id;
     
+    // Optimistic lock: incremented by every write, checked by PUT / PATCH when the client sends it
+    @Version
+    private Long version;
+    
     @Field("listing_url")
     private String listingUrl;
     
@@ -50,11 +58,12 @@ public class ListingAndReview {
     @Field("bed_type")
     private String bedType;
     
+    // Night counts are int32 and money fields Decimal128 (see ListingNumericFields)
     @Field("minimum_nights")
-    private String minimumNights;
+    private Integer minimumNights;
     
     @Field("maximum_nights")
-    private String maximumNights;
+    private Integer maximumNights;
     
     @Field("cancellation_policy")
     private String cancellationPolicy;
@@ -102,5 +111,18 @@ public class ListingAndReview {
     @Field("review_scores")
     private ReviewScores reviewScores;
     
+    // Relevance of a full-text search hit, never stored
+    @TextScore
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float score;
+    
+    // All reviews until the listing is bucketed, then only the most recent ones (newest first), the
+    // full history being in reviewBuckets; null in the detail and card views, which leave it out
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Review> reviews;
+    
+    // Set by the review bucket migration and bulk writes; reviews are then read from and written to reviewBuckets
+    @JsonIgnore
+    @Field("reviews_bucketed")
+    private Boolean reviewsBucketed;
 }
\ No newline at end of file
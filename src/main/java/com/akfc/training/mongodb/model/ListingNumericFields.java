@@ -0,0 +1,66 @@
+package com.akfc.training.mongodb.model;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Numeric fields of a stored listing and their BSON types: money and bathrooms as Decimal128,
+ * night counts as int32. Older documents and raw imports may hold them as strings or doubles,
+ * which compare lexicographically or inexactly and miss numeric range index bounds. Night counts
+ * are rounded to whole nights and clamped to the int32 range: dumps use huge values such as
+ * "99999999999" to mean unbounded, and keeping those as strings would leave mixed types.
+ */
+public final class ListingNumericFields {
+    
+    public static final List<String> DECIMAL = List.of(
+            "price", "security_deposit", "cleaning_fee", "extra_people", "guests_included", "bathrooms");
+    
+    public static final List<String> INT32 = List.of("minimum_nights", "maximum_nights");
+    
+    // $type names a field may have before normalization
+    public static final List<String> NON_DECIMAL_TYPES = List.of("string", "double", "int", "long");
+    public static final List<String> NON_INT32_TYPES = List.of("string", "double", "long", "decimal");
+    
+    private static final BigDecimal INT32_MIN = BigDecimal.valueOf(Integer.MIN_VALUE);
+    private static final BigDecimal INT32_MAX = BigDecimal.valueOf(Integer.MAX_VALUE);
+    
+    private ListingNumericFields() {
+    }
+    
+    /**
+     * Converts the numeric fields of a raw listing document in place; values that do not parse
+     * are left as they are.
+     */
+    public static Document normalize(Document listing) {
+        for (String field : DECIMAL) {
+            Object value = listing.get(field);
+            if (value instanceof String || value instanceof Number) {
+                try {
+                    listing.put(field, new Decimal128(new BigDecimal(value.toString().trim())));
+                } catch (NumberFormatException e) {
+                    // kept as stored
+                }
+            }
+        }
+        for (String field : INT32) {
+            Object value = listing.get(field);
+            if (value instanceof String || value instanceof Number || value instanceof Decimal128) {
+                try {
+                    listing.put(field, toInt32(new BigDecimal(value.toString().trim())));
+                } catch (NumberFormatException e) {
+                    // kept as stored
+                }
+            }
+        }
+        return listing;
+    }
+    
+    static int toInt32(BigDecimal value) {
+        BigDecimal nights = value.setScale(0, RoundingMode.HALF_UP);
+        return nights.max(INT32_MIN).min(INT32_MAX).intValueExact();
+    }
+}
@@ -0,0 +1,51 @@
+package com.akfc.training.mongodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Up to {@code listings.reviews.bucket-size} reviews of one listing, in the order they were
+ * added (migrated reviews in date order). Buckets are numbered per listing ({@code seq}, also
+ * part of the id) and filled one at a time: only the highest-numbered bucket takes new reviews,
+ * so all others are full.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "reviewBuckets")
+public class ReviewBucket {
+    
+    public static final String COLLECTION = "reviewBuckets";
+    
+    @Id
+    private String id;
+    
+    @Field("listing_id")
+    private String listingId;
+    
+    private Integer seq;
+    
+    private int count;
+    
+    @Field("first_date")
+    private LocalDateTime firstDate;
+    
+    @Field("last_date")
+    private LocalDateTime lastDate;
+    
+    private List<Review> reviews;
+    
+    // Unique per listing and sequence, so concurrent writers cannot open the same bucket twice
+    public static String id(Object listingId, int seq) {
+        return listingId + ":" + seq;
+    }
+}
@@ -0,0 +1,33 @@
+package com.akfc.training.mongodb.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search results together with facet counts over every matching listing:
+ * {@code propertyTypes}, {@code roomTypes}, {@code markets}, {@code priceRanges} and
+ * {@code amenities}, each ordered by descending count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedSearchResult {
+    
+    private List<?> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private Map<String, List<FacetCount>> facets;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private Object value;
+        private long count;
+    }
+}
@@ -0,0 +1,72 @@
+package com.akfc.training.mongodb.model.projection;
+
+import com.akfc.training.mongodb.model.Address;
+import com.akfc.training.mongodb.model.Host;
+import com.akfc.training.mongodb.model.Images;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.ReviewScores;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Compact listing used by result lists: enough to render a search result card, without the
+ * long text fields, host biography or embedded reviews.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListingCard {
+    
+    private String id;
+    private String name;
+    private String propertyType;
+    private String roomType;
+    private Integer accommodates;
+    private Integer bedrooms;
+    private Integer beds;
+    private BigDecimal price;
+    private Integer numberOfReviews;
+    private String pictureUrl;
+    private String market;
+    private String country;
+    private Double[] coordinates;
+    private Integer rating;
+    private Boolean superhost;
+    
+    // Only set on full-text search results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float score;
+    
+    public static ListingCard from(ListingAndReview listing) {
+        Images images = listing.getImages();
+        Address address = listing.getAddress();
+        Address.Location location = address != null ? address.getLocation() : null;
+        ReviewScores scores = listing.getReviewScores();
+        Host host = listing.getHost();
+        
+        return ListingCard.builder()
+                .id(listing.getId())
+                .name(listing.getName())
+                .propertyType(listing.getPropertyType())
+                .roomType(listing.getRoomType())
+                .accommodates(listing.getAccommodates())
+                .bedrooms(listing.getBedrooms())
+                .beds(listing.getBeds())
+                .price(listing.getPrice())
+                .numberOfReviews(listing.getNumberOfReviews())
+                .pictureUrl(images != null ? images.getPictureUrl() : null)
+                .market(address != null ? address.getMarket() : null)
+                .country(address != null ? address.getCountry() : null)
+                .coordinates(location != null ? location.getCoordinates() : null)
+                .rating(scores != null ? scores.getReviewScoresRating() : null)
+                .superhost(host != null ? host.getHostIsSuperhost() : null)
+                .score(listing.getScore())
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.akfc.training.mongodb.model.projection;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Shape of a listing in a result list, selected per request with {@code ?view=}. Each view
+ * restricts the fields returned by the server so unused fields are neither transferred nor
+ * decoded.
+ * <ul>
+ *     <li>{@code card} - {@link ListingCard}, a few scalar fields for result lists</li>
+ *     <li>{@code detail} - the whole listing except the embedded reviews</li>
+ *     <li>{@code full} - the whole document</li>
+ * </ul>
+ */
+public enum ListingView {
+    
+    CARD(ListingCard::from) {
+        @Override
+        public void applyTo(Query query) {
+            query.fields().include(
+                    "name", "property_type", "room_type", "accommodates", "bedrooms", "beds",
+                    "price", "number_of_reviews", "images.picture_url", "address.market",
+                    "address.country", "address.location", "review_scores.review_scores_rating",
+                    "host.host_is_superhost");
+        }
+    },
+    DETAIL(listing -> listing) {
+        @Override
+        public void applyTo(Query query) {
+            query.fields().exclude("reviews");
+        }
+    },
+    FULL(listing -> listing) {
+        @Override
+        public void applyTo(Query query) {
+        }
+    };
+    
+    private final Function<ListingAndReview, Object> mapper;
+    
+    ListingView(Function<ListingAndReview, Object> mapper) {
+        this.mapper = mapper;
+    }
+    
+    /**
+     * Adds this view's field projection to the query.
+     */
+    public abstract void applyTo(Query query);
+    
+    public Object map(ListingAndReview listing) {
+        return mapper.apply(listing);
+    }
+    
+    public static ListingView from(String value) {
+        return Arrays.stream(values())
+                .filter(view -> view.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported view: " + value));
+    }
+}
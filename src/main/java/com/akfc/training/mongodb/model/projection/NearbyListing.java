@@ -0,0 +1,18 @@
+package com.akfc.training.mongodb.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A listing of a {@code $geoNear} search, in the requested view, with its distance in meters
+ * from the search point.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyListing {
+    
+    private Object listing;
+    private double distance;
+}
@@ -0,0 +1,57 @@
+package com.akfc.training.mongodb.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.BSONException;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last document of a keyset page. It is serialized as canonical extended JSON
+ * so the sort value keeps its exact BSON type (Decimal128, date, ...) and then base64url
+ * encoded, which makes it opaque to clients.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContinuationToken {
+    
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+    
+    private ListingSortKey sortKey;
+    private Sort.Direction direction;
+    private Object lastValue;
+    private Object lastId;
+    
+    public String encode() {
+        Document document = new Document("k", sortKey.name())
+                .append("d", direction.name())
+                .append("v", lastValue)
+                .append("i", lastId);
+        byte[] json = document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+    
+    public static ContinuationToken decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            return new ContinuationToken(
+                    ListingSortKey.valueOf(document.getString("k")),
+                    Sort.Direction.valueOf(document.getString("d")),
+                    document.get("v"),
+                    document.get("i"));
+        } catch (IllegalArgumentException | JsonParseException | BSONException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
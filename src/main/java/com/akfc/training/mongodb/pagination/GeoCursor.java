@@ -0,0 +1,40 @@
+package com.akfc.training.mongodb.pagination;
+
+import org.bson.BSONException;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position of the last listing of a distance-sorted page: its distance, which becomes the next
+ * page's {@code minDistance}, and the ids already returned at exactly that distance, which the
+ * next page excludes. Encoded like {@link ContinuationToken}.
+ */
+public record GeoCursor(double distance, List<Object> ids) {
+    
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+    
+    public String encode() {
+        Document document = new Document("d", distance).append("i", ids);
+        byte[] json = document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+    
+    public static GeoCursor decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            return new GeoCursor(document.getDouble("d"), document.getList("i", Object.class));
+        } catch (IllegalArgumentException | JsonParseException | BSONException
+                 | ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
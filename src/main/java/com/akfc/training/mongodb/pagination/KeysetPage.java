@@ -0,0 +1,25 @@
+package com.akfc.training.mongodb.pagination;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    
+    // Opaque token to pass back as ?cursor= for the next page, null on the last page
+    private String nextCursor;
+    
+    // Only computed when the caller asks for it (includeTotal=true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+}
@@ -0,0 +1,23 @@
+package com.akfc.training.mongodb.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageRequest {
+    
+    private int limit = 20;
+    
+    // Continuation token from a previous page; when present its sort key and direction win
+    private String cursor;
+    
+    // Sort key (e.g. "price"); null means the endpoint's default
+    private String sort;
+    
+    // "asc" or "desc"; null means the endpoint's default
+    private String direction;
+    
+    private boolean includeTotal;
+}
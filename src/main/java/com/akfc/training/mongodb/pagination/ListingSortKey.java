@@ -0,0 +1,42 @@
+package com.akfc.training.mongodb.pagination;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Sort keys that keyset pagination accepts. Each one is backed by (or should be backed by) an
+ * index that ends in {@code _id}, which is always used as the tie-breaker.
+ */
+public enum ListingSortKey {
+    
+    ID("_id", ListingAndReview::getId),
+    PRICE("price", ListingAndReview::getPrice),
+    ACCOMMODATES("accommodates", ListingAndReview::getAccommodates),
+    NUMBER_OF_REVIEWS("number_of_reviews", ListingAndReview::getNumberOfReviews),
+    NAME("name", ListingAndReview::getName);
+    
+    private final String field;
+    private final Function<ListingAndReview, Object> extractor;
+    
+    ListingSortKey(String field, Function<ListingAndReview, Object> extractor) {
+        this.field = field;
+        this.extractor = extractor;
+    }
+    
+    public String getField() {
+        return field;
+    }
+    
+    public Object valueOf(ListingAndReview listing) {
+        return extractor.apply(listing);
+    }
+    
+    public static ListingSortKey from(String value) {
+        return Arrays.stream(values())
+                .filter(key -> key.field.equalsIgnoreCase(value) || key.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort key: " + value));
+    }
+}
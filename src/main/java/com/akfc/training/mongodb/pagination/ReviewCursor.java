@@ -0,0 +1,39 @@
+package com.akfc.training.mongodb.pagination;
+
+import org.bson.BSONException;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last review of a page of {@code /api/listings/{id}/reviews}: its bucket's
+ * {@code seq} and its index in the bucket. Buckets only ever get reviews appended, so the
+ * position stays valid while new reviews arrive. Encoded like {@link ContinuationToken}.
+ */
+public record ReviewCursor(int bucket, int index) {
+    
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+    
+    public String encode() {
+        Document document = new Document("b", bucket).append("i", index);
+        byte[] json = document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+    
+    public static ReviewCursor decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            return new ReviewCursor(document.getInteger("b"), document.getInteger("i"));
+        } catch (IllegalArgumentException | JsonParseException | BSONException
+                 | ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.akfc.training.mongodb.patch;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates a JSON Merge Patch (RFC 7396) of a listing into a targeted update: members set to
+ * null become {@code $unset}, nested objects of embedded types are merged field by field, and
+ * everything else (scalars, arrays) becomes a {@code $set} of the value converted to the
+ * property's Java type. Paths are property names, mapped to stored field names when the update
+ * runs against {@link ListingAndReview}.
+ */
+@Component
+@RequiredArgsConstructor
+public class MergePatchTranslator {
+    
+    // Maintained by the server: the id, the optimistic-lock version and the review endpoints
+    private static final Set<String> READ_ONLY = Set.of("id", "version", "reviews", "reviewsBucketed", "score");
+    
+    private final ObjectMapper objectMapper;
+    private final MongoMappingContext mappingContext;
+    
+    public Update toUpdate(JsonNode patch) {
+        if (!patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch must be a JSON object");
+        }
+        Update update = new Update();
+        translate(patch, "", mappingContext.getRequiredPersistentEntity(ListingAndReview.class), update);
+        return update;
+    }
+    
+    private void translate(JsonNode patch, String prefix, MongoPersistentEntity<?> entity, Update update) {
+        Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+            String path = prefix + member.getKey();
+            MongoPersistentProperty property = entity.getPersistentProperty(member.getKey());
+            if (property == null || (prefix.isEmpty() && READ_ONLY.contains(member.getKey()))) {
+                throw new IllegalArgumentException("Unknown or read-only field: " + path);
+            }
+            
+            JsonNode value = member.getValue();
+            if (value.isNull()) {
+                update.unset(path);
+            } else if (value.isObject() && property.isEntity() && !property.isCollectionLike() && !property.isMap()) {
+                translate(value, path + ".", mappingContext.getRequiredPersistentEntity(property), update);
+            } else {
+                update.set(path, convert(value, property, path));
+            }
+        }
+    }
+    
+    private Object convert(JsonNode value, MongoPersistentProperty property, String path) {
+        try {
+            return objectMapper.convertValue(value,
+                    objectMapper.getTypeFactory().constructType(property.getField().getGenericType()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + path + ": " + value, e);
+        }
+    }
+}
@@ -49,7 +49,7 @@ public interface ListingAndReviewRepository extends MongoRepository<ListingAndRe
     List<ListingAndReview> findSuperhostListings();
     
     // Find by minimum nights
-    List<ListingAndReview> findByMinimumNights(String minimumNights);
+    List<ListingAndReview> findByMinimumNights(Integer minimumNights);
     
     // Find listings with reviews
     @Query("{'number_of_reviews': {$gt: 0}}")
@@ -0,0 +1,64 @@
+package com.akfc.training.mongodb.repository;
+
+import com.akfc.training.mongodb.model.ListingAndReview;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+
+/**
+ * Non-blocking counterpart of {@link ListingAndReviewRepository} on the reactive streams driver.
+ */
+@Repository
+public interface ReactiveListingAndReviewRepository extends ReactiveMongoRepository<ListingAndReview, String> {
+    
+    // Find by property type
+    Flux<ListingAndReview> findByPropertyType(String propertyType);
+    
+    // Find by room type
+    Flux<ListingAndReview> findByRoomType(String roomType);
+    
+    // Find by host name
+    @Query("{'host.host_name': ?0}")
+    Flux<ListingAndReview> findByHostName(String hostName);
+    
+    // Find by accommodates
+    Flux<ListingAndReview> findByAccommodates(Integer accommodates);
+    
+    // Find by price range
+    Flux<ListingAndReview> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+    
+    // Find by number of bedrooms
+    Flux<ListingAndReview> findByBedrooms(Integer bedrooms);
+    
+    // Find by location (city/market)
+    @Query("{'address.market': ?0}")
+    Flux<ListingAndReview> findByMarket(String market);
+    
+    // Find by country
+    @Query("{'address.country': ?0}")
+    Flux<ListingAndReview> findByCountry(String country);
+    
+    // Find available listings (with availability > 0)
+    @Query("{'availability.availability_30': {$gt: 0}}")
+    Flux<ListingAndReview> findAvailableListings();
+    
+    // Find superhost listings
+    @Query("{'host.host_is_superhost': true}")
+    Flux<ListingAndReview> findSuperhostListings();
+    
+    // Find by minimum nights
+    Flux<ListingAndReview> findByMinimumNights(Integer minimumNights);
+    
+    // Find listings with reviews, one page at a time (reactive repositories return no Page)
+    @Query("{'number_of_reviews': {$gt: 0}}")
+    Flux<ListingAndReview> findListingsWithReviews(Pageable pageable);
+    
+    // Custom query to find by multiple criteria
+    @Query("{'property_type': ?0, 'accommodates': {$gte: ?1}, 'price': {$lte: ?2}}")
+    Flux<ListingAndReview> findByPropertyTypeAndAccommodatesAndMaxPrice(
+            String propertyType, Integer minAccommodates, BigDecimal maxPrice);
+}
@@ -0,0 +1,29 @@
+package com.akfc.training.mongodb.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Exposes the request's {@link CausalToken#HEADER} to {@link CausalSessions} for the duration
+ * of the request. The issued token is written by {@link CausalTokenAdvice}, before the body.
+ */
+@Component
+public class CausalConsistencyFilter extends OncePerRequestFilter {
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        CausalContext.received(request.getHeader(CausalToken.HEADER));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CausalContext.clear();
+        }
+    }
+}
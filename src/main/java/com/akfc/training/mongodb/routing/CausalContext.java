@@ -0,0 +1,36 @@
+package com.akfc.training.mongodb.routing;
+
+/**
+ * Causal tokens of the current request: the one received in {@link CausalToken#HEADER}, still
+ * encoded and decoded only when a read uses it, and the one issued by the request's writes.
+ */
+public final class CausalContext {
+    
+    private static final ThreadLocal<String> RECEIVED = new ThreadLocal<>();
+    private static final ThreadLocal<CausalToken> ISSUED = new ThreadLocal<>();
+    
+    private CausalContext() {
+    }
+    
+    static void received(String token) {
+        RECEIVED.set(token);
+    }
+    
+    static CausalToken received() {
+        String token = RECEIVED.get();
+        return token != null && !token.isBlank() ? CausalToken.decode(token) : null;
+    }
+    
+    static void issue(CausalToken token) {
+        ISSUED.set(CausalToken.latest(ISSUED.get(), token));
+    }
+    
+    static CausalToken issued() {
+        return ISSUED.get();
+    }
+    
+    static void clear() {
+        RECEIVED.remove();
+        ISSUED.remove();
+    }
+}
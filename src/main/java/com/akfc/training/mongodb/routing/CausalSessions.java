@@ -0,0 +1,83 @@
+package com.akfc.training.mongodb.routing;
+
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Runs template operations in causally consistent sessions. Writes record the token to return
+ * to the client; reads that carry a token are advanced to it, so a secondary waits until it has
+ * replicated the write ({@code afterClusterTime}). Reads without a token use no session.
+ * A write also bumps the {@link CollectionVersion}, so a read sent after it never shares the
+ * cached or in-flight result of one sent before.
+ */
+@Component
+@RequiredArgsConstructor
+public class CausalSessions {
+    
+    private static final ClientSessionOptions CAUSAL = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+    
+    private final MongoTemplate mongoTemplate;
+    private final CollectionVersion collectionVersion;
+    
+    public <T> T write(Function<MongoTemplate, T> operation) {
+        try (ClientSession session = startSession()) {
+            CausalToken received = CausalContext.received();
+            if (received != null) {
+                received.advance(session);
+            }
+            T result = operation.apply(mongoTemplate.withSession(session));
+            collectionVersion.bump();
+            CausalContext.issue(CausalToken.of(session));
+            return result;
+        }
+    }
+    
+    // Reads with a token wait for a specific write and are not coalesced with other callers'
+    public boolean hasToken() {
+        return CausalContext.received() != null;
+    }
+    
+    public <T> T read(Function<MongoTemplate, T> operation) {
+        CausalToken received = CausalContext.received();
+        if (received == null) {
+            return operation.apply(mongoTemplate);
+        }
+        try (ClientSession session = startSession()) {
+            received.advance(session);
+            return operation.apply(mongoTemplate.withSession(session));
+        }
+    }
+    
+    /**
+     * {@link #read} for cursor-backed streams: the session, if the read needs one, stays open
+     * until the stream is closed.
+     */
+    public <T> Stream<T> stream(Function<MongoTemplate, Stream<T>> operation) {
+        CausalToken received = CausalContext.received();
+        if (received == null) {
+            return operation.apply(mongoTemplate);
+        }
+        ClientSession session = startSession();
+        try {
+            received.advance(session);
+            return operation.apply(mongoTemplate.withSession(session)).onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+    
+    // The client is owned by the database factory; it is not exposed as a bean of its own
+    private ClientSession startSession() {
+        return mongoTemplate.getMongoDatabaseFactory().getSession(CAUSAL);
+    }
+}
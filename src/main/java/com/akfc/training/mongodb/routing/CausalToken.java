@@ -0,0 +1,77 @@
+package com.akfc.training.mongodb.routing;
+
+import com.mongodb.client.ClientSession;
+import lombok.Value;
+import org.bson.BsonDocument;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonTimestamp;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Operation time and cluster time of a write, handed to the client in the
+ * {@value #HEADER} response header. A later read sending it back runs in a causally consistent
+ * session advanced to that point, so even a secondary only answers once it has applied the
+ * write. Encoded as base64url of extended JSON, like the pagination cursor.
+ */
+@Value
+public class CausalToken {
+    
+    public static final String HEADER = "X-Causal-Token";
+    
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+    
+    BsonTimestamp operationTime;
+    BsonDocument clusterTime;
+    
+    /**
+     * Token for the last operation of the session, or null when the server reports no
+     * operation time (standalone servers).
+     */
+    static CausalToken of(ClientSession session) {
+        if (session.getOperationTime() == null || session.getClusterTime() == null) {
+            return null;
+        }
+        return new CausalToken(session.getOperationTime(), session.getClusterTime());
+    }
+    
+    void advance(ClientSession session) {
+        session.advanceClusterTime(clusterTime);
+        session.advanceOperationTime(operationTime);
+    }
+    
+    public String encode() {
+        BsonDocument document = new BsonDocument("o", operationTime).append("c", clusterTime);
+        byte[] json = document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+    
+    public static CausalToken decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            BsonDocument document = BsonDocument.parse(json);
+            return new CausalToken(document.getTimestamp("o"), document.getDocument("c"));
+        } catch (IllegalArgumentException | JsonParseException | BsonInvalidOperationException e) {
+            throw new IllegalArgumentException("Invalid causal token", e);
+        }
+    }
+    
+    /**
+     * The later of two tokens, so a request chaining several writes returns the last one.
+     */
+    static CausalToken latest(CausalToken a, CausalToken b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.operationTime.compareTo(b.operationTime) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,33 @@
+package com.akfc.training.mongodb.routing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the token issued by the request's writes to the response headers. Only responses with a
+ * body pass through here, which covers every write endpoint but DELETE /{id}.
+ */
+@ControllerAdvice
+public class CausalTokenAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        CausalToken issued = CausalContext.issued();
+        if (issued != null) {
+            response.getHeaders().set(CausalToken.HEADER, issued.encode());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,55 @@
+package com.akfc.training.mongodb.routing;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.mongodb.ReadPreference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read preference per workload. Searches and full-collection aggregations may run on
+ * secondaries ({@code listings.read-routing.*}), bounded by {@code max-staleness}; everything
+ * else, including reads of a single listing, uses the client default (primary). On a standalone
+ * server every read preference resolves to the only node.
+ */
+@Slf4j
+@Component
+public class ReadRouting {
+    
+    private final ReadPreference search;
+    private final ReadPreference analytics;
+    
+    public ReadRouting(ListingsProperties properties) {
+        ListingsProperties.ReadRouting routing = properties.getReadRouting();
+        this.search = readPreference(routing.getSearch(), routing.getMaxStaleness());
+        this.analytics = readPreference(routing.getAnalytics(), routing.getMaxStaleness());
+        log.info("Read routing: search={}, analytics={}", search, analytics);
+    }
+    
+    public Query forSearch(Query query) {
+        return query.withReadPreference(search);
+    }
+    
+    public Aggregation forSearch(Aggregation aggregation) {
+        return aggregation.withOptions(AggregationOptions.builder().readPreference(search).build());
+    }
+    
+    public Aggregation forAnalytics(Aggregation aggregation) {
+        return aggregation.withOptions(AggregationOptions.builder().readPreference(analytics).build());
+    }
+    
+    private static ReadPreference readPreference(String mode, Duration maxStaleness) {
+        ReadPreference readPreference = ReadPreference.valueOf(mode);
+        // maxStalenessSeconds is not allowed with primary
+        if (readPreference.equals(ReadPreference.primary()) || maxStaleness == null || maxStaleness.isZero()) {
+            return readPreference;
+        }
+        return ReadPreference.valueOf(mode, List.of(), maxStaleness.toSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -1,39 +1,117 @@
 package com.akfc.training.mongodb.service;
 
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.akfc.training.mongodb.cache.ListingByIdCache;
+import com.akfc.training.mongodb.cache.QueryResultCache;
+import com.akfc.training.mongodb.concurrency.SingleFlight;
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.geo.ListingSpatialIndex;
+import com.akfc.training.mongodb.geo.SpatialEntry;
+import com.akfc.training.mongodb.geo.SpatialNeighbor;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.akfc.training.mongodb.model.Address;
 import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.ReviewBucket;
+import com.akfc.training.mongodb.model.projection.FacetedSearchResult;
+import com.akfc.training.mongodb.model.projection.FacetedSearchResult.FacetCount;
+import com.akfc.training.mongodb.model.projection.ListingView;
+import com.akfc.training.mongodb.model.projection.NearbyListing;
+import com.akfc.training.mongodb.pagination.ContinuationToken;
+import com.akfc.training.mongodb.pagination.GeoCursor;
+import com.akfc.training.mongodb.pagination.KeysetPage;
+import com.akfc.training.mongodb.pagination.KeysetPageRequest;
+import com.akfc.training.mongodb.pagination.ListingSortKey;
+import com.akfc.training.mongodb.patch.MergePatchTranslator;
 import com.akfc.training.mongodb.repository.ListingAndReviewRepository;
+import com.akfc.training.mongodb.routing.CausalSessions;
+import com.akfc.training.mongodb.routing.ReadRouting;
+import com.akfc.training.mongodb.stats.MaterializedStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.data.geo.Point;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ListingAndReviewService {
     
+    // Stored fields a PUT neither sets nor removes
+    private static final Set<String> REPLACE_MANAGED = Set.of(
+            "_id", "_class", "version", "reviews", "reviews_bucketed", "score");
+    
+    // Ids per $in when deleting listings together with their review buckets
+    private static final int DELETE_BATCH_SIZE = 1000;
+    
     private final ListingAndReviewRepository repository;
     private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    private final ReadRouting readRouting;
+    private final CausalSessions causalSessions;
+    private final MaterializedStats materializedStats;
+    private final ListingSpatialIndex spatialIndex;
+    private final MergePatchTranslator patchTranslator;
+    private final SingleFlight singleFlight;
+    private final QueryResultCache resultCache;
+    private final CollectionVersion collectionVersion;
+    private final ListingByIdCache listingByIdCache;
     
     // ========== CRUD Operations using MongoRepository ==========
     
-    public List<ListingAndReview> findAll() {
-        log.info("Finding all listings using repository");
-        return repository.findAll();
+    /**
+     * Streams every listing from a server-side cursor. The caller must close the returned
+     * stream (try-with-resources) so the cursor is killed when the consumer stops early.
+     */
+    public Stream<ListingAndReview> streamAll() {
+        int batchSize = properties.getStreaming().getBatchSize();
+        log.info("Streaming all listings with cursor batch size {}", batchSize);
+        Query query = new Query().cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, ListingAndReview.class);
     }
     
     public Page<ListingAndReview> findAllPaginated(int page, int size) {
@@ -42,169 +120,856 @@ public class ListingAndReviewService {
         return repository.findAll(pageable);
     }
     
+    // Cache misses are read from the primary, so a GET after a PUT sees the write; hits never
+    // reach Mongo and rely on writes evicting the entry. The interceptor only serves hits: a miss
+    // is cached by ListingByIdCache, which drops it if a write happened while it was read
+    @Cacheable(cacheNames = CacheConfig.LISTING_BY_ID, key = "#id", unless = "true")
     public Optional<ListingAndReview> findById(String id) {
         log.info("Finding listing by id: {}", id);
-        return repository.findById(id);
+        long readAt = collectionVersion.current();
+        // Concurrent cache misses for the same id share one query
+        Optional<ListingAndReview> listing = coalesce("findById", id, () -> repository.findById(id));
+        listing.ifPresent(found -> listingByIdCache.fill(id, found, readAt));
+        return listing;
+    }
+    
+    /**
+     * The stored version of a listing, for conditional GETs: only {@code version} is projected,
+     * so the document is neither transferred nor mapped. Empty when the listing does not exist
+     * or has never been versioned.
+     */
+    public Optional<Long> findVersion(String id) {
+        log.info("Finding version of listing: {}", id);
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        return coalesce("findVersion", id, () -> Optional.ofNullable(
+                        mongoTemplate.findOne(query, Document.class, ListingAndReviewIndexes.COLLECTION))
+                .map(document -> document.get("version", Number.class))
+                .map(Number::longValue));
     }
     
+    // Inserts: a listing without a version is new, so an existing id is a duplicate key
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, key = "#listing.id", condition = "#listing.id != null")
     public ListingAndReview save(ListingAndReview listing) {
         log.info("Saving listing: {}", listing.getName());
-        return repository.save(listing);
+        return causalSessions.write(template -> template.save(listing));
+    }
+    
+    /**
+     * Replaces the listing's fields in one findAndModify, leaving the server-maintained ones
+     * (reviews, version) alone. A non-null version in the body must match the stored one.
+     * Returns empty when no listing has this id.
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, key = "#id")
+    public Optional<ListingAndReview> replace(String id, ListingAndReview listing) {
+        log.info("Replacing listing: {}", id);
+        Document fields = new Document();
+        mongoTemplate.getConverter().write(listing, fields);
+        
+        Update update = new Update();
+        fields.forEach((field, value) -> {
+            if (!REPLACE_MANAGED.contains(field)) {
+                update.set(field, value);
+            }
+        });
+        // Fields missing from the body are removed, as with a full replacement
+        mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(ListingAndReview.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    String field = property.getFieldName();
+                    if (!fields.containsKey(field) && !REPLACE_MANAGED.contains(field) && property.isWritable()) {
+                        update.unset(field);
+                    }
+                });
+        return modify(id, listing.getVersion() != null, listing.getVersion(), update);
+    }
+    
+    /**
+     * Applies a JSON Merge Patch as targeted $set / $unset in one findAndModify. A "version"
+     * member makes it conditional on the stored version (null: never versioned).
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, key = "#id")
+    public Optional<ListingAndReview> patch(String id, JsonNode patch) {
+        log.info("Patching listing: {}", id);
+        JsonNode expected = patch.isObject() ? patch.get("version") : null;
+        if (expected != null && !expected.isNull() && !expected.canConvertToLong()) {
+            throw new IllegalArgumentException("version must be a number");
+        }
+        JsonNode changes = patch;
+        if (expected != null) {
+            changes = patch.deepCopy();
+            ((ObjectNode) changes).remove("version");
+        }
+        Update update = patchTranslator.toUpdate(changes);
+        return modify(id, expected != null, expected != null && !expected.isNull() ? expected.asLong() : null, update);
+    }
+    
+    private Optional<ListingAndReview> modify(String id, boolean versioned, Long expectedVersion, Update update) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (versioned) {
+            // null also matches listings written before versioning
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        Query query = new Query(criteria);
+        update.inc("version", 1);
+        ListingAndReview updated = causalSessions.write(template -> template.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), ListingAndReview.class));
+        // Only a failed conditional write needs a second look to tell 404 from 409
+        if (updated == null && versioned && repository.existsById(id)) {
+            throw new OptimisticLockingFailureException(
+                    "Listing " + id + " was modified concurrently (expected version " + expectedVersion + ")");
+        }
+        return Optional.ofNullable(updated);
     }
     
-    public void deleteById(String id) {
+    /**
+     * Deletes the listing and its review buckets; false when no listing has this id.
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, key = "#id")
+    public boolean deleteById(String id) {
         log.info("Deleting listing by id: {}", id);
-        repository.deleteById(id);
+        return causalSessions.write(template -> {
+            long deleted = template.remove(new Query(Criteria.where("_id").is(id)), ListingAndReview.class)
+                    .getDeletedCount();
+            if (deleted > 0) {
+                template.remove(new Query(Criteria.where("listing_id").is(id)), ReviewBucket.COLLECTION);
+            }
+            return deleted > 0;
+        });
     }
     
     public boolean existsById(String id) {
         return repository.existsById(id);
     }
     
-    // ========== Repository-based Query Methods ==========
+    /**
+     * Document count from the collection metadata: constant time, no scan.
+     */
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(ListingAndReview.class);
+    }
+    
+    // ========== Search Methods (projected per ListingView) ==========
+    
+    public List<?> findByPropertyType(String propertyType, ListingView view) {
+        log.info("Finding listings by property type: {} (view={})", propertyType, view);
+        return find(new Query(Criteria.where("property_type").is(propertyType)), view);
+    }
+    
+    public List<?> findByRoomType(String roomType, ListingView view) {
+        log.info("Finding listings by room type: {} (view={})", roomType, view);
+        return find(new Query(Criteria.where("room_type").is(roomType)), view);
+    }
+    
+    public List<?> findByHostName(String hostName, ListingView view) {
+        log.info("Finding listings by host name: {} (view={})", hostName, view);
+        return find(new Query(Criteria.where("host.host_name").is(hostName)), view);
+    }
+    
+    public List<?> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, ListingView view) {
+        log.info("Finding listings by price range: {} - {} (view={})", minPrice, maxPrice, view);
+        return find(new Query(Criteria.where("price").gt(minPrice).lt(maxPrice)), view);
+    }
+    
+    public List<?> findSuperhostListings(ListingView view) {
+        log.info("Finding superhost listings (view={})", view);
+        return find(new Query(Criteria.where("host.host_is_superhost").is(true)), view);
+    }
+    
+    /**
+     * Runs a listing query with the view's field projection applied on the server, then maps
+     * each (partial) entity to the view's response shape.
+     */
+    private List<?> find(Query query, ListingView view) {
+        view.applyTo(query);
+        return cached("find", SingleFlight.key(query, view), () -> causalSessions.read(
+                        template -> template.find(readRouting.forSearch(query), ListingAndReview.class))
+                .stream()
+                .map(view::map)
+                .toList());
+    }
+    
+    public Page<ListingAndReview> findListingsWithReviews(int page, int size) {
+        log.info("Finding listings with reviews: page={}, size={}", page, size);
+        return repository.findListingsWithReviews(PageRequest.of(page, size));
+    }
+    
+    // ========== Raw BSON passthrough ==========
+    
+    /**
+     * The stored document as the driver received it: a {@link RawBsonDocument} wraps the BSON
+     * bytes, so nothing is decoded into entities. Read on the primary, like {@link #findById}.
+     */
+    public Optional<RawBsonDocument> findRawById(String id) {
+        log.info("Finding raw listing by id: {}", id);
+        return coalesce("findRawById", id, () -> Optional.ofNullable(mongoTemplate.execute(
+                ListingAndReviewIndexes.COLLECTION, collection -> collection.withDocumentClass(RawBsonDocument.class)
+                        .find(new Document("_id", id))
+                        .first())));
+    }
+    
+    // The raw searches below return cursor-backed streams the caller must close, like streamAll()
     
-    public List<ListingAndReview> findByPropertyType(String propertyType) {
-        log.info("Finding listings by property type: {}", propertyType);
-        return repository.findByPropertyType(propertyType);
+    public Stream<RawBsonDocument> streamRawByPropertyType(String propertyType, ListingView view) {
+        log.info("Streaming raw listings by property type: {} (view={})", propertyType, view);
+        return streamRaw(new Query(Criteria.where("property_type").is(propertyType)), view);
     }
     
-    public List<ListingAndReview> findByRoomType(String roomType) {
-        log.info("Finding listings by room type: {}", roomType);
-        return repository.findByRoomType(roomType);
+    public Stream<RawBsonDocument> streamRawByRoomType(String roomType, ListingView view) {
+        log.info("Streaming raw listings by room type: {} (view={})", roomType, view);
+        return streamRaw(new Query(Criteria.where("room_type").is(roomType)), view);
     }
     
-    public List<ListingAndReview> findByHostName(String hostName) {
-        log.info("Finding listings by host name: {}", hostName);
-        return repository.findByHostName(hostName);
+    public Stream<RawBsonDocument> streamRawByHostName(String hostName, ListingView view) {
+        log.info("Streaming raw listings by host name: {} (view={})", hostName, view);
+        return streamRaw(new Query(Criteria.where("host.host_name").is(hostName)), view);
     }
     
-    public List<ListingAndReview> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        log.info("Finding listings by price range: {} - {}", minPrice, maxPrice);
-        return repository.findByPriceBetween(minPrice, maxPrice);
+    public Stream<RawBsonDocument> streamRawByPriceRange(BigDecimal minPrice, BigDecimal maxPrice,
+                                                         ListingView view) {
+        log.info("Streaming raw listings by price range: {} - {} (view={})", minPrice, maxPrice, view);
+        return streamRaw(new Query(Criteria.where("price").gt(minPrice).lt(maxPrice)), view);
     }
     
-    public List<ListingAndReview> findSuperhostListings() {
-        log.info("Finding superhost listings");
-        return repository.findSuperhostListings();
+    public Stream<RawBsonDocument> streamRawSuperhostListings(ListingView view) {
+        log.info("Streaming raw superhost listings (view={})", view);
+        return streamRaw(new Query(Criteria.where("host.host_is_superhost").is(true)), view);
+    }
+    
+    public Stream<RawBsonDocument> streamRawByCustomCriteria(String propertyType, Integer minAccommodates,
+                                                             BigDecimal maxPrice, String country, ListingView view) {
+        log.info("Streaming raw listings with custom criteria (view={})", view);
+        return streamRaw(ListingQueries.customQuery(propertyType, minAccommodates, maxPrice, country), view);
+    }
+    
+    /**
+     * {@link #find(Query, ListingView)} without the entity mapping: the query is mapped to field
+     * names as stored and run on the driver collection, returning the documents' raw bytes as
+     * the cursor fetches them. A stream cannot be shared, so these reads are not coalesced.
+     */
+    private Stream<RawBsonDocument> streamRaw(Query query, ListingView view) {
+        view.applyTo(query);
+        MongoConverter converter = mongoTemplate.getConverter();
+        QueryMapper mapper = new QueryMapper(converter);
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getPersistentEntity(ListingAndReview.class);
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document fields = mapper.getMappedFields(query.getFieldsObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+        ReadPreference readPreference = readRouting.forSearch(query).getReadPreference();
+        int batchSize = properties.getStreaming().getBatchSize();
+        
+        return causalSessions.stream(template -> {
+            MongoCursor<RawBsonDocument> cursor = template.execute(ListingAndReviewIndexes.COLLECTION,
+                    collection -> collection.withDocumentClass(RawBsonDocument.class)
+                            .withReadPreference(readPreference)
+                            .find(filter)
+                            .projection(fields)
+                            .sort(sort)
+                            .skip((int) query.getSkip())
+                            .limit(query.getLimit())
+                            .batchSize(batchSize)
+                            .cursor());
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                    .onClose(cursor::close);
+        });
+    }
+    
+    // ========== Keyset (seek) Pagination ==========
+    
+    public KeysetPage<?> findAllKeyset(KeysetPageRequest request, ListingView view) {
+        log.info("Finding all listings with keyset pagination: limit={}", request.getLimit());
+        return findKeysetPage(new Criteria(), request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findListingsWithReviewsKeyset(KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings with reviews with keyset pagination: limit={}", request.getLimit());
+        return findKeysetPage(Criteria.where("number_of_reviews").gt(0),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findByPropertyTypeKeyset(String propertyType, KeysetPageRequest request,
+                                                  ListingView view) {
+        log.info("Finding listings by property type with keyset pagination: {}", propertyType);
+        return findKeysetPage(Criteria.where("property_type").is(propertyType),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findByRoomTypeKeyset(String roomType, KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings by room type with keyset pagination: {}", roomType);
+        return findKeysetPage(Criteria.where("room_type").is(roomType),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findByHostNameKeyset(String hostName, KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings by host name with keyset pagination: {}", hostName);
+        return findKeysetPage(Criteria.where("host.host_name").is(hostName),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findByPriceRangeKeyset(BigDecimal minPrice, BigDecimal maxPrice,
+                                                KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings by price range with keyset pagination: {} - {}", minPrice, maxPrice);
+        return findKeysetPage(Criteria.where("price").gt(minPrice).lt(maxPrice),
+                request, view, ListingSortKey.PRICE, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findSuperhostListingsKeyset(KeysetPageRequest request, ListingView view) {
+        log.info("Finding superhost listings with keyset pagination");
+        return findKeysetPage(Criteria.where("host.host_is_superhost").is(true),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    public KeysetPage<?> findByCustomCriteriaKeyset(String propertyType, Integer minAccommodates,
+                                                    BigDecimal maxPrice, String country,
+                                                    KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings with custom criteria with keyset pagination");
+        return findKeysetPage(ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country),
+                request, view, ListingSortKey.PRICE, Sort.Direction.DESC);
+    }
+    
+    /**
+     * Runs one keyset page: the filter plus a seek predicate past the last (sortKey, _id) pair
+     * of the previous page, sorted on the same pair and limited to limit + 1 so the extra
+     * document tells us whether there is a next page. No skip and, unless requested, no count.
+     */
+    private KeysetPage<?> findKeysetPage(Criteria filter, KeysetPageRequest request, ListingView view,
+                                         ListingSortKey defaultSortKey, Sort.Direction defaultDirection) {
+        int limit = request.getLimit();
+        int maxLimit = properties.getPagination().getMaxLimit();
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+        
+        ContinuationToken after = request.getCursor() != null
+                ? ContinuationToken.decode(request.getCursor()) : null;
+        ListingSortKey sortKey = after != null ? after.getSortKey()
+                : request.getSort() != null ? ListingSortKey.from(request.getSort()) : defaultSortKey;
+        Sort.Direction direction = after != null ? after.getDirection()
+                : request.getDirection() != null ? Sort.Direction.fromString(request.getDirection()) : defaultDirection;
+        
+        Query query = new Query(after != null ? new Criteria().andOperator(filter, seekCriteria(after)) : filter);
+        query.with(sortKey == ListingSortKey.ID
+                ? Sort.by(direction, "_id")
+                : Sort.by(direction, sortKey.getField(), "_id"));
+        query.limit(limit + 1);
+        // Every view projects the sort keys, which the next cursor is built from
+        view.applyTo(query);
+        
+        return coalesce("keysetPage", SingleFlight.key(query, view, request.isIncludeTotal()),
+                () -> keysetPage(query, filter, limit, sortKey, direction, request.isIncludeTotal(), view));
+    }
+    
+    private KeysetPage<?> keysetPage(Query query, Criteria filter, int limit, ListingSortKey sortKey,
+                                     Sort.Direction direction, boolean includeTotal, ListingView view) {
+        List<ListingAndReview> results = causalSessions.read(
+                template -> template.find(readRouting.forSearch(query), ListingAndReview.class));
+        boolean hasNext = results.size() > limit;
+        List<ListingAndReview> content = hasNext ? results.subList(0, limit) : results;
+        
+        String nextCursor = null;
+        if (hasNext) {
+            ListingAndReview last = content.get(content.size() - 1);
+            Object lastValue = mongoTemplate.getConverter().convertToMongoType(sortKey.valueOf(last));
+            nextCursor = new ContinuationToken(sortKey, direction, lastValue, last.getId()).encode();
+        }
+        
+        Long total = includeTotal
+                ? causalSessions.read(template -> template.count(
+                        readRouting.forSearch(new Query(filter)), ListingAndReview.class))
+                : null;
+        
+        List<?> mapped = content.stream().map(view::map).toList();
+        return new KeysetPage<>(mapped, mapped.size(), hasNext, nextCursor, total);
+    }
+    
+    private Criteria seekCriteria(ContinuationToken after) {
+        boolean ascending = after.getDirection().isAscending();
+        Criteria idAfter = ascending
+                ? Criteria.where("_id").gt(after.getLastId())
+                : Criteria.where("_id").lt(after.getLastId());
+        if (after.getSortKey() == ListingSortKey.ID) {
+            return idAfter;
+        }
+        
+        String field = after.getSortKey().getField();
+        Object value = after.getLastValue();
+        
+        // Missing / null sort values sort before everything ascending and after everything descending
+        if (value == null) {
+            Criteria sameNull = new Criteria().andOperator(Criteria.where(field).is(null), idAfter);
+            return ascending
+                    ? new Criteria().orOperator(sameNull, Criteria.where(field).ne(null))
+                    : sameNull;
+        }
+        
+        Criteria beyond = ascending ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+        Criteria tie = new Criteria().andOperator(Criteria.where(field).is(value), idAfter);
+        return ascending
+                ? new Criteria().orOperator(beyond, tie)
+                : new Criteria().orOperator(beyond, tie, Criteria.where(field).is(null));
     }
     
     // ========== MongoTemplate-based Operations ==========
     
-    public List<ListingAndReview> findByCustomCriteria(String propertyType, Integer minAccommodates, 
-                                                      BigDecimal maxPrice, String country) {
-        log.info("Finding listings with custom criteria using MongoTemplate");
+    public List<?> findByCustomCriteria(String propertyType, Integer minAccommodates,
+                                        BigDecimal maxPrice, String country, ListingView view) {
+        log.info("Finding listings with custom criteria using MongoTemplate (view={})", view);
         
-        Query query = new Query();
+        return find(ListingQueries.customQuery(propertyType, minAccommodates, maxPrice, country), view);
+    }
+    
+    /**
+     * The custom search page plus facet counts over all matches in a single aggregation.
+     */
+    public FacetedSearchResult findByCustomCriteriaFaceted(String propertyType, Integer minAccommodates,
+                                                           BigDecimal maxPrice, String country, int page, int size,
+                                                           int facetLimit, ListingView view) {
+        log.info("Faceted search with custom criteria (page={}, size={}, facetLimit={}, view={})",
+                page, size, facetLimit, view);
         
-        if (propertyType != null) {
-            query.addCriteria(Criteria.where("property_type").is(propertyType));
+        int maxSize = properties.getPagination().getMaxLimit();
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxSize);
         }
-        if (minAccommodates != null) {
-            query.addCriteria(Criteria.where("accommodates").gte(minAccommodates));
+        if (page < 0 || facetLimit < 1 || facetLimit > maxSize) {
+            throw new IllegalArgumentException("page must be >= 0 and facetLimit between 1 and " + maxSize);
         }
-        if (maxPrice != null) {
-            query.addCriteria(Criteria.where("price").lte(maxPrice));
+        
+        Query viewProjection = new Query();
+        view.applyTo(viewProjection);
+        Aggregation aggregation = ListingQueries.facetedSearch(
+                ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country),
+                viewProjection.getFieldsObject(), (long) page * size, size, facetLimit);
+        
+        return coalesce("facetedSearch", SingleFlight.key(aggregation, view), () -> facetedSearchResult(
+                causalSessions.read(template -> template.aggregate(
+                        readRouting.forSearch(aggregation), "listingsAndReviews", Document.class))
+                        .getUniqueMappedResult(), page, view));
+    }
+    
+    private FacetedSearchResult facetedSearchResult(Document result, int page, ListingView view) {
+        List<?> content = result.getList("results", Document.class).stream()
+                .map(document -> view.map(mongoTemplate.getConverter().read(ListingAndReview.class, document)))
+                .toList();
+        List<Document> total = result.getList("total", Document.class);
+        long totalElements = total.isEmpty() ? 0 : total.get(0).get("count", Number.class).longValue();
+        
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        for (String facet : List.of("propertyTypes", "roomTypes", "markets", "amenities")) {
+            facets.put(facet, result.getList(facet, Document.class).stream()
+                    .map(bucket -> new FacetCount(bucket.get("_id"), bucket.get("count", Number.class).longValue()))
+                    .toList());
+        }
+        facets.put("priceRanges", result.getList("priceRanges", Document.class).stream()
+                .map(bucket -> new FacetCount(priceRangeLabel(bucket.get("_id")),
+                        bucket.get("count", Number.class).longValue()))
+                .toList());
+        
+        return new FacetedSearchResult(content, page, content.size(), totalElements, facets);
+    }
+    
+    // "100-150" from the bucket's lower bound, "500+" for the open-ended last one
+    private static Object priceRangeLabel(Object lowerBound) {
+        List<Integer> bounds = ListingQueries.PRICE_BUCKETS;
+        int index = bounds.indexOf(lowerBound);
+        if (index < 0) {
+            return lowerBound;
+        }
+        return index == bounds.size() - 1
+                ? bounds.get(index) + "+"
+                : bounds.get(index) + "-" + bounds.get(index + 1);
+    }
+    
+    // ========== Geo Search ==========
+    
+    /**
+     * Listings within [minDistance, maxDistance] meters of the point that match the custom
+     * criteria, nearest first with their distance, in one {@code $geoNear} pipeline.
+     */
+    public List<NearbyListing> findNearLocation(double longitude, double latitude, Double minDistance,
+                                                Double maxDistance, String propertyType, Integer minAccommodates,
+                                                BigDecimal maxPrice, String country, ListingView view) {
+        log.info("Finding listings near location: {}, {} within {}-{} meters (view={})",
+                longitude, latitude, minDistance, maxDistance, view);
+        checkPoint(longitude, latitude);
+        
+        Criteria criteria = ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country);
+        return geoNear(longitude, latitude, minDistance, maxDistance, criteria, 0, view).stream()
+                .map(document -> nearbyListing(document, view))
+                .toList();
+    }
+    
+    /**
+     * A keyset page of {@link #findNearLocation}. The cursor carries the last distance and the
+     * ids seen at that distance, so the next page starts there instead of skipping.
+     */
+    public KeysetPage<NearbyListing> findNearLocationKeyset(double longitude, double latitude, Double minDistance,
+                                                            Double maxDistance, String propertyType,
+                                                            Integer minAccommodates, BigDecimal maxPrice,
+                                                            String country, KeysetPageRequest request,
+                                                            ListingView view) {
+        log.info("Finding listings near location: {}, {} with keyset pagination (view={})",
+                longitude, latitude, view);
+        checkPoint(longitude, latitude);
+        int limit = request.getLimit();
+        int maxLimit = properties.getPagination().getMaxLimit();
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
         }
-        if (country != null) {
-            query.addCriteria(Criteria.where("address.country").is(country));
+        
+        Criteria criteria = ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country);
+        Double from = minDistance;
+        if (request.getCursor() != null) {
+            GeoCursor after = GeoCursor.decode(request.getCursor());
+            from = minDistance != null ? Math.max(minDistance, after.distance()) : after.distance();
+            criteria = criteria.and("_id").nin(after.ids());
         }
         
-        query.with(Sort.by(Sort.Direction.DESC, "price"));
+        List<Document> results = geoNear(longitude, latitude, from, maxDistance, criteria, limit + 1, view);
+        boolean hasNext = results.size() > limit;
+        List<Document> page = hasNext ? results.subList(0, limit) : results;
         
-        return mongoTemplate.find(query, ListingAndReview.class);
+        String nextCursor = null;
+        if (hasNext) {
+            double lastDistance = distance(page.get(page.size() - 1));
+            List<Object> idsAtLastDistance = new ArrayList<>();
+            for (int i = page.size() - 1; i >= 0 && distance(page.get(i)) == lastDistance; i--) {
+                idsAtLastDistance.add(page.get(i).get("_id"));
+            }
+            nextCursor = new GeoCursor(lastDistance, idsAtLastDistance).encode();
+        }
+        List<NearbyListing> content = page.stream().map(document -> nearbyListing(document, view)).toList();
+        return new KeysetPage<>(content, content.size(), hasNext, nextCursor, null);
     }
     
-    public List<ListingAndReview> findNearLocation(double longitude, double latitude, double maxDistance) {
-        log.info("Finding listings near location: {}, {} within {} meters", longitude, latitude, maxDistance);
+    /**
+     * Listings inside a map viewport, as keyset pages. Boxes crossing the antimeridian are not supported.
+     */
+    public KeysetPage<?> findWithinBoxKeyset(double minLongitude, double minLatitude,
+                                             double maxLongitude, double maxLatitude,
+                                             String propertyType, Integer minAccommodates, BigDecimal maxPrice,
+                                             String country, KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings within box [{}, {}] - [{}, {}] with keyset pagination",
+                minLongitude, minLatitude, maxLongitude, maxLatitude);
+        checkBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
         
-        Query query = new Query();
-        query.addCriteria(Criteria.where("address.location.coordinates")
-                .nearSphere(new Point(longitude, latitude))
-                .maxDistance(maxDistance / 6371000)); // Convert meters to radians
+        GeoJsonPolygon box = ListingQueries.box(minLongitude, minLatitude, maxLongitude, maxLatitude);
+        return findKeysetPage(ListingQueries.withinPolygon(
+                        ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country), box),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    /**
+     * Listings inside a polygon given as its vertices; the ring is closed if needed.
+     */
+    public KeysetPage<?> findWithinPolygonKeyset(List<Point> vertices, String propertyType,
+                                                 Integer minAccommodates, BigDecimal maxPrice, String country,
+                                                 KeysetPageRequest request, ListingView view) {
+        log.info("Finding listings within a polygon of {} vertices with keyset pagination", vertices.size());
+        vertices.forEach(vertex -> checkPoint(vertex.getX(), vertex.getY()));
+        List<Point> ring = new ArrayList<>(vertices);
+        if (!ring.isEmpty() && !ring.get(0).equals(ring.get(ring.size() - 1))) {
+            ring.add(ring.get(0));
+        }
+        if (ring.size() < 4) {
+            throw new IllegalArgumentException("polygon needs at least 3 distinct vertices");
+        }
+        
+        return findKeysetPage(ListingQueries.withinPolygon(
+                        ListingQueries.customCriteria(propertyType, minAccommodates, maxPrice, country),
+                        new GeoJsonPolygon(ring)),
+                request, view, ListingSortKey.ID, Sort.Direction.ASC);
+    }
+    
+    // ========== Map Search (in-process spatial index) ==========
+    
+    /**
+     * Listings inside a map viewport. Ids come from the spatial index, so Mongo only hydrates the
+     * matches; until the index is built the box is queried with {@code $geoWithin}.
+     */
+    public List<?> findInViewport(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude,
+                                  String roomType, BigDecimal maxPrice, int limit, ListingView view) {
+        log.info("Finding listings in viewport [{}, {}] - [{}, {}] (view={})",
+                minLongitude, minLatitude, maxLongitude, maxLatitude, view);
+        checkBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
+        checkLimit("limit", limit, properties.getPagination().getMaxLimit());
+        
+        if (!spatialIndex.isReady()) {
+            return find(new Query(mapCriteria(minLongitude, minLatitude, maxLongitude, maxLatitude, roomType, maxPrice))
+                    .limit(limit), view);
+        }
+        List<SpatialEntry> entries = spatialIndex.within(minLongitude, minLatitude, maxLongitude, maxLatitude,
+                markerFilter(roomType, maxPrice), limit);
+        Map<String, ListingAndReview> listings = hydrate(entries.stream().map(SpatialEntry::id).toList(), view);
+        return entries.stream()
+                .map(entry -> listings.get(String.valueOf(entry.id())))
+                .filter(Objects::nonNull)
+                .map(view::map)
+                .toList();
+    }
+    
+    /**
+     * The k listings nearest to the point with their distance, ranked in process; until the
+     * spatial index is built this is a {@code $geoNear} search.
+     */
+    public List<NearbyListing> findNearest(double longitude, double latitude, Double minDistance, double maxDistance,
+                                           String roomType, BigDecimal maxPrice, int k, ListingView view) {
+        log.info("Finding {} listings nearest to {}, {} within {} meters (view={})",
+                k, longitude, latitude, maxDistance, view);
+        checkPoint(longitude, latitude);
+        checkLimit("k", k, properties.getPagination().getMaxLimit());
+        
+        if (!spatialIndex.isReady()) {
+            Criteria criteria = new Criteria();
+            if (roomType != null) {
+                criteria = criteria.and("room_type").is(roomType);
+            }
+            if (maxPrice != null) {
+                criteria = criteria.and("price").lte(maxPrice);
+            }
+            return geoNear(longitude, latitude, minDistance, maxDistance, criteria, k, view).stream()
+                    .map(document -> nearbyListing(document, view))
+                    .toList();
+        }
+        List<SpatialNeighbor> neighbors = spatialIndex.nearest(longitude, latitude,
+                minDistance != null ? minDistance : 0, maxDistance, markerFilter(roomType, maxPrice), k);
+        Map<String, ListingAndReview> listings = hydrate(
+                neighbors.stream().map(neighbor -> neighbor.entry().id()).toList(), view);
+        return neighbors.stream()
+                .filter(neighbor -> listings.containsKey(String.valueOf(neighbor.entry().id())))
+                .map(neighbor -> new NearbyListing(
+                        view.map(listings.get(String.valueOf(neighbor.entry().id()))), neighbor.distance()))
+                .toList();
+    }
+    
+    /**
+     * Map markers (id, position, price, room type) inside a viewport, straight from the spatial
+     * index without touching Mongo once it is built.
+     */
+    public List<SpatialEntry> findMarkers(double minLongitude, double minLatitude, double maxLongitude,
+                                          double maxLatitude, String roomType, BigDecimal maxPrice, int limit) {
+        log.info("Finding map markers in viewport [{}, {}] - [{}, {}]",
+                minLongitude, minLatitude, maxLongitude, maxLatitude);
+        checkBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
+        checkLimit("limit", limit, properties.getSpatialIndex().getMaxMarkers());
+        
+        if (spatialIndex.isReady()) {
+            return spatialIndex.within(minLongitude, minLatitude, maxLongitude, maxLatitude,
+                    markerFilter(roomType, maxPrice), limit);
+        }
+        Query query = new Query(mapCriteria(minLongitude, minLatitude, maxLongitude, maxLatitude, roomType, maxPrice))
+                .limit(limit);
+        query.fields().include("address.location", "price", "room_type");
+        return causalSessions.read(template -> template.find(readRouting.forSearch(query), ListingAndReview.class))
+                .stream()
+                .map(ListingAndReviewService::marker)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private static SpatialEntry marker(ListingAndReview listing) {
+        Address.Location location = listing.getAddress() != null ? listing.getAddress().getLocation() : null;
+        Double[] coordinates = location != null ? location.getCoordinates() : null;
+        if (coordinates == null || coordinates.length < 2 || coordinates[0] == null || coordinates[1] == null) {
+            return null;
+        }
+        return new SpatialEntry(listing.getId(), coordinates[0], coordinates[1],
+                listing.getPrice() != null ? listing.getPrice().doubleValue() : null, listing.getRoomType());
+    }
+    
+    private static Criteria mapCriteria(double minLongitude, double minLatitude, double maxLongitude,
+                                        double maxLatitude, String roomType, BigDecimal maxPrice) {
+        Criteria criteria = new Criteria();
+        if (roomType != null) {
+            criteria = criteria.and("room_type").is(roomType);
+        }
+        if (maxPrice != null) {
+            criteria = criteria.and("price").lte(maxPrice);
+        }
+        return ListingQueries.withinPolygon(criteria,
+                ListingQueries.box(minLongitude, minLatitude, maxLongitude, maxLatitude));
+    }
+    
+    private static Predicate<SpatialEntry> markerFilter(String roomType, BigDecimal maxPrice) {
+        return entry -> (roomType == null || roomType.equals(entry.roomType()))
+                && (maxPrice == null || entry.price() != null && entry.price() <= maxPrice.doubleValue());
+    }
+    
+    // Listings by id in the requested view, keyed by the id as the entity exposes it
+    private Map<String, ListingAndReview> hydrate(List<Object> ids, ListingView view) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        view.applyTo(query);
+        return causalSessions.read(template -> template.find(readRouting.forSearch(query), ListingAndReview.class))
+                .stream()
+                .collect(Collectors.toMap(ListingAndReview::getId, Function.identity()));
+    }
+    
+    private static void checkBox(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        checkPoint(minLongitude, minLatitude);
+        checkPoint(maxLongitude, maxLatitude);
+        if (minLongitude >= maxLongitude || minLatitude >= maxLatitude) {
+            throw new IllegalArgumentException("box must have minLongitude < maxLongitude and minLatitude < maxLatitude");
+        }
+    }
+    
+    private static void checkLimit(String name, int value, int max) {
+        if (value < 1 || value > max) {
+            throw new IllegalArgumentException(name + " must be between 1 and " + max);
+        }
+    }
+    
+    private List<Document> geoNear(double longitude, double latitude, Double minDistance, Double maxDistance,
+                                        Criteria criteria, int limit, ListingView view) {
+        if (minDistance != null && maxDistance != null && minDistance > maxDistance) {
+            throw new IllegalArgumentException("minDistance must not exceed maxDistance");
+        }
+        // $geoNear takes its filter as a raw document, so it is mapped like a find filter here
+        MongoConverter converter = mongoTemplate.getConverter();
+        Document filter = new QueryMapper(converter).getMappedObject(criteria.getCriteriaObject(),
+                converter.getMappingContext().getPersistentEntity(ListingAndReview.class));
+        Query viewProjection = new Query();
+        view.applyTo(viewProjection);
+        Aggregation aggregation = ListingQueries.geoNear(longitude, latitude, minDistance, maxDistance,
+                filter, viewProjection.getFieldsObject(), limit);
         
-        return mongoTemplate.find(query, ListingAndReview.class);
+        return coalesce("geoNear", SingleFlight.key(aggregation), () -> causalSessions.read(
+                        template -> template.aggregate(readRouting.forSearch(aggregation),
+                                ListingAndReviewIndexes.COLLECTION, Document.class))
+                .getMappedResults());
+    }
+    
+    private NearbyListing nearbyListing(Document document, ListingView view) {
+        return new NearbyListing(view.map(mongoTemplate.getConverter().read(ListingAndReview.class, document)),
+                distance(document));
+    }
+    
+    private static double distance(Document document) {
+        return document.get(ListingQueries.DISTANCE_FIELD, Number.class).doubleValue();
     }
     
+    private static void checkPoint(double longitude, double latitude) {
+        if (longitude < -180 || longitude > 180 || latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("longitude must be within [-180, 180] and latitude within [-90, 90]");
+        }
+    }
+    
+    // Affected ids are not known without a read, so the whole cache is dropped
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, allEntries = true)
     public long updatePriceByPropertyType(String propertyType, BigDecimal newPrice) {
         log.info("Updating price for property type: {} to {}", propertyType, newPrice);
         
         Query query = new Query(Criteria.where("property_type").is(propertyType));
-        Update update = new Update().set("price", newPrice);
+        Update update = new Update().set("price", newPrice).inc("version", 1);
         
-        return mongoTemplate.updateMulti(query, update, ListingAndReview.class).getModifiedCount();
+        return causalSessions.write(template -> template.updateMulti(query, update, ListingAndReview.class))
+                .getModifiedCount();
     }
     
+    // Affected ids are not known without a read, so the whole cache is dropped
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, allEntries = true)
     public long updateHostResponseTime(String hostId, String responseTime) {
         log.info("Updating host response time for host: {} to {}", hostId, responseTime);
         
         Query query = new Query(Criteria.where("host.host_id").is(hostId));
-        Update update = new Update().set("host.host_response_time", responseTime);
+        Update update = new Update().set("host.host_response_time", responseTime).inc("version", 1);
         
-        return mongoTemplate.updateMulti(query, update, ListingAndReview.class).getModifiedCount();
+        return causalSessions.write(template -> template.updateMulti(query, update, ListingAndReview.class))
+                .getModifiedCount();
     }
     
     // ========== Aggregation Operations using MongoTemplate ==========
     
     public List<PropertyTypeStats> getPropertyTypeStatistics() {
+        if (properties.getStats().isMaterialized()) {
+            log.info("Getting materialized property type statistics");
+            return materializedStats.propertyTypes();
+        }
         log.info("Getting property type statistics using aggregation");
         
-        Aggregation aggregation = Aggregation.newAggregation(
-                Aggregation.group("property_type")
-                        .count().as("count")
-                        .avg("price").as("averagePrice")
-                        .min("price").as("minPrice")
-                        .max("price").as("maxPrice"),
-                Aggregation.sort(Sort.Direction.DESC, "count")
-        );
-        
-        AggregationResults<PropertyTypeStats> results = mongoTemplate.aggregate(
-                aggregation, "listingsAndReviews", PropertyTypeStats.class);
-        
-        return results.getMappedResults();
+        Aggregation aggregation = ListingQueries.propertyTypeStatistics();
+        return cached("propertyTypeStats", SingleFlight.key(aggregation), () -> {
+            AggregationResults<PropertyTypeStats> results = causalSessions.read(template -> template.aggregate(
+                    readRouting.forAnalytics(aggregation), "listingsAndReviews", PropertyTypeStats.class));
+            
+            Instant now = Instant.now();
+            results.getMappedResults().forEach(stats -> stats.setRefreshedAt(now));
+            return results.getMappedResults();
+        });
     }
     
     public List<HostStats> getTopHostsByListings(int limit) {
+        if (properties.getStats().isMaterialized()) {
+            log.info("Getting materialized top hosts by number of listings: limit={}", limit);
+            return materializedStats.topHosts(limit);
+        }
         log.info("Getting top hosts by number of listings: limit={}", limit);
         
-        Aggregation aggregation = Aggregation.newAggregation(
-                Aggregation.group("host.host_id", "host.host_name")
-                        .count().as("listingCount")
-                        .avg("review_scores.review_scores_rating").as("averageRating"),
-                Aggregation.sort(Sort.Direction.DESC, "listingCount"),
-                Aggregation.limit(limit)
-        );
-        
-        AggregationResults<HostStats> results = mongoTemplate.aggregate(
-                aggregation, "listingsAndReviews", HostStats.class);
-        
-        return results.getMappedResults();
+        Aggregation aggregation = ListingQueries.topHostsByListings(limit);
+        return cached("topHosts", SingleFlight.key(aggregation), () -> {
+            AggregationResults<HostStats> results = causalSessions.read(template -> template.aggregate(
+                    readRouting.forAnalytics(aggregation), "listingsAndReviews", HostStats.class));
+            
+            Instant now = Instant.now();
+            results.getMappedResults().forEach(stats -> stats.setRefreshedAt(now));
+            return results.getMappedResults();
+        });
     }
     
-    public List<ListingAndReview> searchByText(String searchText) {
-        log.info("Performing text search: {}", searchText);
+    /**
+     * Full-text search on the weighted text index (name > summary > description > neighborhood
+     * overview), stemmed in the given language and ranked by relevance.
+     */
+    public List<?> searchByText(String searchText, String language, int page, int size, ListingView view) {
+        log.info("Performing text search: {} (language={}, page={}, size={}, view={})",
+                searchText, language, page, size, view);
         
-        Query query = new Query();
-        query.addCriteria(Criteria.where("name").regex(searchText, "i")
-                .orOperator(
-                        Criteria.where("description").regex(searchText, "i"),
-                        Criteria.where("neighborhood_overview").regex(searchText, "i")
-                ));
+        int maxSize = properties.getPagination().getMaxLimit();
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxSize);
+        }
         
-        return mongoTemplate.find(query, ListingAndReview.class);
+        Query query = ListingQueries.textSearch(searchText,
+                language != null ? language : properties.getTextSearch().getDefaultLanguage(), page, size);
+        return find(query, view);
     }
     
-    // ========== Bulk Operations ==========
+    // Identical concurrent reads share one query, except those waiting for a causal token
+    private <T> T coalesce(String operation, Object key, Supplier<T> loader) {
+        return causalSessions.hasToken() ? loader.get()
+                : singleFlight.execute(operation, List.of(collectionVersion.current(), key), loader);
+    }
     
-    public void saveAll(List<ListingAndReview> listings) {
-        log.info("Saving {} listings in bulk", listings.size());
-        repository.saveAll(listings);
+    // Served from the result cache until the collection version moves on, coalesced on a miss
+    private <T> T cached(String operation, Object key, Supplier<T> loader) {
+        return causalSessions.hasToken() ? loader.get()
+                : resultCache.get(operation, key, () -> coalesce(operation, key, loader));
     }
     
+    // ========== Bulk Operations ==========
+    
+    // Affected ids are not known without a read, so the whole cache is dropped
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, allEntries = true)
     public long deleteByPropertyType(String propertyType) {
         log.info("Deleting all listings with property type: {}", propertyType);
         
         Query query = new Query(Criteria.where("property_type").is(propertyType));
-        return mongoTemplate.remove(query, ListingAndReview.class).getDeletedCount();
+        query.fields().include("_id");
+        return causalSessions.write(template -> {
+            // The ids are collected first so the listings' review buckets go with them
+            List<Object> ids = template.find(query, Document.class, ListingAndReviewIndexes.COLLECTION).stream()
+                    .map(document -> document.get("_id"))
+                    .toList();
+            long deleted = 0;
+            for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+                List<Object> batch = ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size()));
+                deleted += template.remove(new Query(Criteria.where("_id").in(batch)), ListingAndReview.class)
+                        .getDeletedCount();
+                template.remove(new Query(Criteria.where("listing_id").in(batch)), ReviewBucket.COLLECTION);
+            }
+            return deleted;
+        });
     }
     
     // ========== Helper Classes for Aggregation Results ==========
@@ -218,6 +983,7 @@ public class ListingAndReviewService {
         private BigDecimal averagePrice;
         private BigDecimal minPrice;
         private BigDecimal maxPrice;
+        private Instant refreshedAt; // When the row was last computed
     }
     
     @lombok.Data
@@ -228,5 +994,6 @@ public class ListingAndReviewService {
         private String hostName;
         private long listingCount;
         private Double averageRating;
+        private Instant refreshedAt; // When the row was last computed
     }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.akfc.training.mongodb.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Query and aggregation construction for {@link ListingAndReviewService}, kept free of any
+ * Mongo access so the same builders can be benchmarked in isolation.
+ */
+public final class ListingQueries {
+    
+    // Lower bounds of the price facet buckets, the last one open-ended
+    public static final List<Integer> PRICE_BUCKETS = List.of(0, 50, 100, 150, 200, 300, 500);
+    
+    // Price facet bucket of listings without a numeric price
+    public static final String UNPRICED = "unpriced";
+    
+    // Field $geoNear writes the distance from the search point to, in meters
+    public static final String DISTANCE_FIELD = "distance";
+    
+    // Languages $text can stem in (names and ISO 639-1 codes), "none" for no stemming or stop words
+    public static final Set<String> TEXT_SEARCH_LANGUAGES = Set.of("none",
+            "danish", "da", "dutch", "nl", "english", "en", "finnish", "fi", "french", "fr",
+            "german", "de", "hungarian", "hu", "italian", "it", "norwegian", "nb", "portuguese", "pt",
+            "romanian", "ro", "russian", "ru", "spanish", "es", "swedish", "sv", "turkish", "tr");
+    
+    private ListingQueries() {
+    }
+    
+    // ========== Queries ==========
+    
+    public static Criteria customCriteria(String propertyType, Integer minAccommodates,
+                                          BigDecimal maxPrice, String country) {
+        Criteria criteria = new Criteria();
+        
+        if (propertyType != null) {
+            criteria = criteria.and("property_type").is(propertyType);
+        }
+        if (minAccommodates != null) {
+            criteria = criteria.and("accommodates").gte(minAccommodates);
+        }
+        if (maxPrice != null) {
+            criteria = criteria.and("price").lte(maxPrice);
+        }
+        if (country != null) {
+            criteria = criteria.and("address.country").is(country);
+        }
+        
+        return criteria;
+    }
+    
+    public static Query customQuery(String propertyType, Integer minAccommodates,
+                                    BigDecimal maxPrice, String country) {
+        Query query = new Query(customCriteria(propertyType, minAccommodates, maxPrice, country));
+        return query.with(Sort.by(Sort.Direction.DESC, "price"));
+    }
+    
+    /**
+     * Criteria restricted to listings located inside the polygon ({@code $geoWithin} with a
+     * GeoJSON geometry, answered by the 2dsphere index).
+     */
+    public static Criteria withinPolygon(Criteria criteria, GeoJsonPolygon polygon) {
+        return criteria.and("address.location").within(polygon);
+    }
+    
+    // Map viewport as a closed GeoJSON ring, counter-clockwise from the south-west corner
+    public static GeoJsonPolygon box(double minLongitude, double minLatitude,
+                                     double maxLongitude, double maxLatitude) {
+        return new GeoJsonPolygon(
+                new Point(minLongitude, minLatitude),
+                new Point(maxLongitude, minLatitude),
+                new Point(maxLongitude, maxLatitude),
+                new Point(minLongitude, maxLatitude),
+                new Point(minLongitude, minLatitude));
+    }
+    
+    public static Query nearLocation(double longitude, double latitude, double maxDistance) {
+        // GeoJSON point against the 2dsphere index on address.location, so maxDistance is in meters
+        return new Query(Criteria.where("address.location")
+                .nearSphere(new GeoJsonPoint(longitude, latitude))
+                .maxDistance(maxDistance));
+    }
+    
+    // An unsupported language would otherwise fail on the server as a 500
+    public static Query textSearch(String searchText, String language, int page, int size) {
+        String normalized = language.toLowerCase(Locale.ROOT);
+        if (!TEXT_SEARCH_LANGUAGES.contains(normalized)) {
+            throw new IllegalArgumentException("Unsupported text search language '" + language
+                    + "', expected one of " + new TreeSet<>(TEXT_SEARCH_LANGUAGES));
+        }
+        TextCriteria criteria = TextCriteria.forLanguage(normalized).matching(searchText);
+        return TextQuery.queryText(criteria)
+                .sortByScore()
+                .includeScore()
+                .with(PageRequest.of(page, size));
+    }
+    
+    // ========== Aggregations ==========
+    
+    public static Aggregation propertyTypeStatistics() {
+        return Aggregation.newAggregation(
+                Aggregation.group("property_type")
+                        .count().as("count")
+                        .avg("price").as("averagePrice")
+                        .min("price").as("minPrice")
+                        .max("price").as("maxPrice"),
+                Aggregation.sort(Sort.Direction.DESC, "count")
+        );
+    }
+    
+    /**
+     * One round trip for a search page and its facet counts. Stages inside {@code $facet} cannot
+     * use indexes, so the criteria and the page order run before it: {@code $match} and
+     * {@code $sort} are planned together as one find, which walks the (price, _id) index
+     * backwards instead of sorting the matched documents in memory when the filter allows it.
+     * {@code $facet} then only skips to the page and counts.
+     */
+    public static Aggregation facetedSearch(Criteria criteria, Document projection,
+                                            long skip, int size, int facetLimit) {
+        List<AggregationOperation> results = new ArrayList<>(List.of(
+                Aggregation.skip(skip),
+                Aggregation.limit(size)));
+        if (!projection.isEmpty()) {
+            results.add(Aggregation.stage(new Document("$project", projection)));
+        }
+        
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "price", "_id")),
+                Aggregation.facet(results.toArray(AggregationOperation[]::new)).as("results")
+                        .and(Aggregation.count().as("count")).as("total")
+                        .and(Aggregation.sortByCount("property_type"), Aggregation.limit(facetLimit)).as("propertyTypes")
+                        .and(Aggregation.sortByCount("room_type"), Aggregation.limit(facetLimit)).as("roomTypes")
+                        .and(Aggregation.sortByCount("address.market"), Aggregation.limit(facetLimit)).as("markets")
+                        .and(Aggregation.bucket("price")
+                                .withBoundaries(PRICE_BUCKETS.toArray())
+                                .withBoundaries(Integer.MAX_VALUE)
+                                .withDefaultBucket(UNPRICED)
+                                .andOutputCount().as("count")).as("priceRanges")
+                        .and(Aggregation.unwind("amenities"), Aggregation.sortByCount("amenities"),
+                                Aggregation.limit(facetLimit)).as("amenities")
+        );
+    }
+    
+    /**
+     * Listings sorted by distance from the point, nearest first, with the distance in meters in
+     * {@link #DISTANCE_FIELD}. The filter must already be mapped to document field names and
+     * types; it runs inside {@code $geoNear} so it is applied while the 2dsphere index is walked.
+     * A limit of 0 returns every listing within {@code maxDistance}.
+     */
+    public static Aggregation geoNear(double longitude, double latitude, Double minDistance, Double maxDistance,
+                                      Document filter, Document projection, int limit) {
+        Document geoNear = new Document("near", new Document("type", "Point")
+                        .append("coordinates", List.of(longitude, latitude)))
+                .append("key", "address.location")
+                .append("distanceField", DISTANCE_FIELD)
+                .append("spherical", true)
+                .append("query", filter);
+        if (minDistance != null) {
+            geoNear.append("minDistance", minDistance);
+        }
+        if (maxDistance != null) {
+            geoNear.append("maxDistance", maxDistance);
+        }
+        
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.stage(new Document("$geoNear", geoNear)));
+        if (limit > 0) {
+            operations.add(Aggregation.limit(limit));
+        }
+        if (!projection.isEmpty()) {
+            Document project = new Document(projection);
+            // An inclusion projection has to name the computed distance, an exclusion keeps it
+            if (!project.containsValue(0)) {
+                project.append(DISTANCE_FIELD, 1);
+            }
+            operations.add(Aggregation.stage(new Document("$project", project)));
+        }
+        return Aggregation.newAggregation(operations);
+    }
+    
+    public static Aggregation topHostsByListings(int limit) {
+        return Aggregation.newAggregation(
+                Aggregation.group("host.host_id", "host.host_name")
+                        .count().as("listingCount")
+                        .avg("review_scores.review_scores_rating").as("averageRating"),
+                Aggregation.sort(Sort.Direction.DESC, "listingCount"),
+                Aggregation.limit(limit)
+        );
+    }
+}
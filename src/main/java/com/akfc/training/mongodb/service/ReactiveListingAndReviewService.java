@@ -0,0 +1,148 @@
+package com.akfc.training.mongodb.service;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.projection.ListingView;
+import com.akfc.training.mongodb.repository.ReactiveListingAndReviewRepository;
+import com.akfc.training.mongodb.routing.ReadRouting;
+import com.akfc.training.mongodb.stats.MaterializedStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Read side of {@link ListingAndReviewService} on {@link ReactiveMongoTemplate}. Queries and
+ * pipelines come from {@link ListingQueries}, so both APIs send the same commands. Every
+ * {@link Flux} is a server-side cursor fetched in {@code listings.streaming.batch-size} batches
+ * as the subscriber requests more, so a slow client slows the cursor down instead of
+ * buffering results.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveListingAndReviewService {
+    
+    private final ReactiveListingAndReviewRepository repository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ListingsProperties properties;
+    private final ReadRouting readRouting;
+    
+    // ========== CRUD Operations using ReactiveMongoRepository ==========
+    
+    public Flux<ListingAndReview> streamAll() {
+        log.info("Streaming all listings reactively");
+        return reactiveMongoTemplate.find(batched(new Query()), ListingAndReview.class);
+    }
+    
+    public Mono<ListingAndReview> findById(String id) {
+        log.info("Finding listing by id reactively: {}", id);
+        return repository.findById(id);
+    }
+    
+    public Flux<ListingAndReview> findListingsWithReviews(int page, int size) {
+        log.info("Finding listings with reviews reactively: page={}, size={}", page, size);
+        return repository.findListingsWithReviews(PageRequest.of(page, size));
+    }
+    
+    // ========== Search Operations using ReactiveMongoTemplate ==========
+    
+    public Flux<?> findByPropertyType(String propertyType, ListingView view) {
+        log.info("Finding listings by property type reactively: {} (view={})", propertyType, view);
+        return find(new Query(Criteria.where("property_type").is(propertyType)), view);
+    }
+    
+    public Flux<?> findByRoomType(String roomType, ListingView view) {
+        log.info("Finding listings by room type reactively: {} (view={})", roomType, view);
+        return find(new Query(Criteria.where("room_type").is(roomType)), view);
+    }
+    
+    public Flux<?> findByHostName(String hostName, ListingView view) {
+        log.info("Finding listings by host name reactively: {} (view={})", hostName, view);
+        return find(new Query(Criteria.where("host.host_name").is(hostName)), view);
+    }
+    
+    public Flux<?> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, ListingView view) {
+        log.info("Finding listings by price range reactively: {} - {} (view={})", minPrice, maxPrice, view);
+        return find(new Query(Criteria.where("price").gt(minPrice).lt(maxPrice)), view);
+    }
+    
+    public Flux<?> findSuperhostListings(ListingView view) {
+        log.info("Finding superhost listings reactively (view={})", view);
+        return find(new Query(Criteria.where("host.host_is_superhost").is(true)), view);
+    }
+    
+    public Flux<?> findByCustomCriteria(String propertyType, Integer minAccommodates,
+                                        BigDecimal maxPrice, String country, ListingView view) {
+        log.info("Finding listings with custom criteria reactively (view={})", view);
+        return find(ListingQueries.customQuery(propertyType, minAccommodates, maxPrice, country), view);
+    }
+    
+    public Flux<?> findNearLocation(double longitude, double latitude, double maxDistance, ListingView view) {
+        log.info("Finding listings near location reactively: {}, {} within {} meters (view={})",
+                longitude, latitude, maxDistance, view);
+        return find(ListingQueries.nearLocation(longitude, latitude, maxDistance), view);
+    }
+    
+    public Flux<?> searchByText(String searchText, String language, int page, int size, ListingView view) {
+        log.info("Performing reactive text search: {} (language={}, page={}, size={}, view={})",
+                searchText, language, page, size, view);
+        
+        int maxSize = properties.getPagination().getMaxLimit();
+        if (size < 1 || size > maxSize) {
+            return Flux.error(new IllegalArgumentException("size must be between 1 and " + maxSize));
+        }
+        
+        Query query;
+        try {
+            query = ListingQueries.textSearch(searchText,
+                    language != null ? language : properties.getTextSearch().getDefaultLanguage(), page, size);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(e);
+        }
+        return find(query, view);
+    }
+    
+    // ========== Aggregation Operations using ReactiveMongoTemplate ==========
+    
+    public Flux<ListingAndReviewService.PropertyTypeStats> getPropertyTypeStatistics() {
+        if (properties.getStats().isMaterialized()) {
+            log.info("Getting materialized property type statistics reactively");
+            return reactiveMongoTemplate.find(new Query().with(Sort.by(Sort.Direction.DESC, "count")),
+                    ListingAndReviewService.PropertyTypeStats.class, MaterializedStats.PROPERTY_TYPES);
+        }
+        log.info("Getting property type statistics reactively");
+        return reactiveMongoTemplate.aggregate(readRouting.forAnalytics(ListingQueries.propertyTypeStatistics()),
+                "listingsAndReviews", ListingAndReviewService.PropertyTypeStats.class);
+    }
+    
+    public Flux<ListingAndReviewService.HostStats> getTopHostsByListings(int limit) {
+        if (properties.getStats().isMaterialized()) {
+            log.info("Getting materialized top hosts reactively: limit={}", limit);
+            return reactiveMongoTemplate.find(
+                    new Query().with(Sort.by(Sort.Direction.DESC, "listingCount")).limit(limit),
+                    ListingAndReviewService.HostStats.class, MaterializedStats.HOSTS);
+        }
+        log.info("Getting top hosts by number of listings reactively: limit={}", limit);
+        return reactiveMongoTemplate.aggregate(readRouting.forAnalytics(ListingQueries.topHostsByListings(limit)),
+                "listingsAndReviews", ListingAndReviewService.HostStats.class);
+    }
+    
+    private Flux<?> find(Query query, ListingView view) {
+        view.applyTo(query);
+        return reactiveMongoTemplate.find(readRouting.forSearch(batched(query)), ListingAndReview.class)
+                .map(view::map);
+    }
+    
+    private Query batched(Query query) {
+        return query.cursorBatchSize(properties.getStreaming().getBatchSize());
+    }
+}
@@ -0,0 +1,192 @@
+package com.akfc.training.mongodb.service;
+
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.migration.ReviewBucketMigration;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import com.akfc.training.mongodb.model.Review;
+import com.akfc.training.mongodb.model.ReviewBucket;
+import com.akfc.training.mongodb.pagination.KeysetPage;
+import com.akfc.training.mongodb.pagination.ReviewCursor;
+import com.akfc.training.mongodb.routing.CausalSessions;
+import com.akfc.training.mongodb.routing.ReadRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Reviews of a listing, stored in {@code reviewBuckets} with the most recent ones also embedded
+ * in the listing. Listings that still embed all their reviews are migrated on first access.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewService {
+    
+    private static final int BUCKETS_PER_BATCH = 4;
+    
+    private final ListingsProperties properties;
+    private final ReadRouting readRouting;
+    private final CausalSessions causalSessions;
+    private final ReviewBucketMigration migration;
+    
+    // ========== Reads ==========
+    
+    /**
+     * One page of reviews, most recently added first, or empty when the listing does not exist.
+     * Buckets are read newest first through a cursor until the page is full, so no review is
+     * skipped however full the buckets are or however their dates overlap.
+     */
+    public Optional<KeysetPage<Review>> findReviews(String listingId, int limit, String cursor) {
+        log.info("Finding reviews of listing {}: limit={}", listingId, limit);
+        int maxLimit = properties.getPagination().getMaxLimit();
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+        ReviewCursor after = cursor != null ? ReviewCursor.decode(cursor) : null;
+        if (!migration.migrate(listingId)) {
+            return Optional.empty();
+        }
+        
+        // Buckets not numbered yet are left to the review-buckets migration
+        Criteria bucketCriteria = Criteria.where("listing_id").is(listingId);
+        bucketCriteria = after != null
+                ? bucketCriteria.and("seq").lte(after.bucket())
+                : bucketCriteria.and("seq").ne(null);
+        Query buckets = readRouting.forSearch(new Query(bucketCriteria)
+                .with(Sort.by(Sort.Direction.DESC, "seq"))
+                .cursorBatchSize(BUCKETS_PER_BATCH));
+        
+        // One review past the page tells whether there is a next one
+        List<Review> reviews = new ArrayList<>(limit + 1);
+        ReviewCursor last = causalSessions.read(template -> {
+            ReviewCursor position = null;
+            try (Stream<ReviewBucket> stream = template.stream(buckets, ReviewBucket.class)) {
+                Iterator<ReviewBucket> iterator = stream.iterator();
+                while (reviews.size() <= limit && iterator.hasNext()) {
+                    ReviewBucket bucket = iterator.next();
+                    List<Review> contents = bucket.getReviews() != null ? bucket.getReviews() : List.of();
+                    int from = after != null && bucket.getSeq() == after.bucket()
+                            ? Math.min(after.index(), contents.size()) : contents.size();
+                    for (int index = from - 1; index >= 0 && reviews.size() <= limit; index--) {
+                        reviews.add(contents.get(index));
+                        if (reviews.size() == limit) {
+                            position = new ReviewCursor(bucket.getSeq(), index);
+                        }
+                    }
+                }
+            }
+            return position;
+        });
+        
+        boolean hasNext = reviews.size() > limit;
+        List<Review> page = hasNext ? reviews.subList(0, limit) : reviews;
+        String nextCursor = hasNext ? last.encode() : null;
+        return Optional.of(new KeysetPage<>(page, page.size(), hasNext, nextCursor, null));
+    }
+    
+    // ========== Writes ==========
+    
+    /**
+     * Appends a review to the listing's open bucket and to its embedded recent reviews, or returns
+     * empty when the listing does not exist.
+     */
+    @CacheEvict(cacheNames = CacheConfig.LISTING_BY_ID, key = "#listingId")
+    public Optional<Review> addReview(String listingId, Review review) {
+        log.info("Adding review to listing {}", listingId);
+        if (!migration.migrate(listingId)) {
+            return Optional.empty();
+        }
+        if (review.getId() == null) {
+            review.setId(UUID.randomUUID().toString());
+        }
+        if (review.getDate() == null) {
+            review.setDate(LocalDateTime.now());
+        }
+        review.setListingId(listingId);
+        
+        ListingsProperties.Reviews settings = properties.getReviews();
+        Update appendToListing = new Update()
+                .inc("number_of_reviews", 1)
+                .inc("version", 1)
+                .min("first_review", review.getDate())
+                .max("last_review", review.getDate());
+        appendToListing.push("reviews")
+                .sort(Sort.by(Sort.Direction.DESC, "date"))
+                .slice(settings.getEmbeddedRecent())
+                .each(review);
+        
+        causalSessions.write(template -> {
+            appendToOpenBucket(template, listingId, review);
+            return template.updateFirst(new Query(Criteria.where("_id").is(listingId)),
+                    appendToListing, ListingAndReview.class);
+        });
+        return Optional.of(review);
+    }
+    
+    /**
+     * Pushes the review into the listing's highest-numbered bucket, or opens the next one when
+     * that bucket is full. Bucket ids are unique per sequence number, so writers racing to open
+     * a bucket end up in the same one: the loser's insert fails and it pushes instead.
+     */
+    private void appendToOpenBucket(MongoTemplate template, String listingId, Review review) {
+        int bucketSize = properties.getReviews().getBucketSize();
+        Query newest = new Query(Criteria.where("listing_id").is(listingId))
+                .with(Sort.by(Sort.Direction.DESC, "seq"))
+                .limit(1);
+        newest.fields().include("seq");
+        ReviewBucket current = template.findOne(newest, ReviewBucket.class);
+        int seq = current != null && current.getSeq() != null ? current.getSeq() : 0;
+        
+        while (true) {
+            if (push(template, listingId, seq, review, bucketSize)) {
+                return;
+            }
+            try {
+                template.insert(ReviewBucket.builder()
+                        .id(ReviewBucket.id(listingId, seq))
+                        .listingId(listingId)
+                        .seq(seq)
+                        .count(1)
+                        .firstDate(review.getDate())
+                        .lastDate(review.getDate())
+                        .reviews(List.of(review))
+                        .build());
+                return;
+            } catch (DuplicateKeyException e) {
+                // Opened concurrently (it may still have room) or full: try it once more, then move on
+                if (push(template, listingId, seq, review, bucketSize)) {
+                    return;
+                }
+            }
+            seq++;
+        }
+    }
+    
+    private static boolean push(MongoTemplate template, String listingId, int seq, Review review, int bucketSize) {
+        Query bucket = new Query(Criteria.where("_id").is(ReviewBucket.id(listingId, seq))
+                .and("count").lt(bucketSize));
+        Update append = new Update()
+                .push("reviews", review)
+                .inc("count", 1)
+                .set("seq", seq)
+                .min("first_date", review.getDate())
+                .max("last_date", review.getDate());
+        return template.updateFirst(bucket, append, ReviewBucket.class).getModifiedCount() == 1;
+    }
+}
@@ -0,0 +1,318 @@
+package com.akfc.training.mongodb.stats;
+
+import com.akfc.training.mongodb.cache.CollectionVersion;
+import com.akfc.training.mongodb.changes.ListingChange;
+import com.akfc.training.mongodb.changes.ListingChangeListener;
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.akfc.training.mongodb.index.ListingAndReviewIndexes;
+import com.akfc.training.mongodb.service.ListingAndReviewService.HostStats;
+import com.akfc.training.mongodb.service.ListingAndReviewService.PropertyTypeStats;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Property-type and host statistics kept in their own collections, so /stats/* read a handful
+ * of precomputed rows instead of grouping the whole listings collection.
+ * <p>
+ * Rows carry running sums and counts, so every listing change is applied as a retraction of
+ * its old contribution and an addition of its new one (pipeline updates, upserted). Minimum and
+ * maximum prices can only widen incrementally; they, and anything missed, are corrected by the
+ * full rebuild ({@code $group} + {@code $merge}) that runs every
+ * {@code listings.stats.rebuild-interval} and whenever the change stream resets. Each row has
+ * a {@code refreshedAt} timestamp.
+ * <p>
+ * Deltas and rebuilds run one at a time on a single maintenance thread, so a rebuild's
+ * {@code $merge} and stale-row sweep never interleave with incremental updates. Changes at or
+ * before the cluster time a rebuild started reading from are already in its totals and are
+ * skipped; changes racing with the rebuild's scan may still be counted twice until the next one.
+ * Without a change stream (standalone server) the rows only move with the rebuilds.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MaterializedStats implements ListingChangeListener, DisposableBean {
+    
+    public static final String PROPERTY_TYPES = "propertyTypeStats";
+    public static final String HOSTS = "hostStats";
+    
+    private static final AggregationExpression PRICE_PRESENT = AggregationExpression.from(
+            MongoExpression.create("{ $cond: [{ $isNumber: '$price' }, 1, 0] }"));
+    private static final AggregationExpression RATING_PRESENT = AggregationExpression.from(
+            MongoExpression.create("{ $cond: [{ $isNumber: '$review_scores.review_scores_rating' }, 1, 0] }"));
+    
+    private final MongoTemplate mongoTemplate;
+    private final ListingsProperties properties;
+    private final CollectionVersion collectionVersion;
+    
+    private final ExecutorService maintainer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    
+    // Cluster time the last rebuild read from; only touched on the maintenance thread
+    private BsonTimestamp rebuiltFrom;
+    
+    // ========== Reads ==========
+    
+    public List<PropertyTypeStats> propertyTypes() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "count"));
+        return mongoTemplate.find(query, PropertyTypeStats.class, PROPERTY_TYPES);
+    }
+    
+    public List<HostStats> topHosts(int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "listingCount")).limit(limit);
+        return mongoTemplate.find(query, HostStats.class, HOSTS);
+    }
+    
+    // ========== Incremental maintenance ==========
+    
+    @Override
+    public Set<String> fields() {
+        return Set.of("property_type", "price", "host.host_id", "host.host_name",
+                "review_scores.review_scores_rating");
+    }
+    
+    @Override
+    public void onChange(ListingChange change) {
+        if (!properties.getStats().isMaterialized()) {
+            return;
+        }
+        maintainer.execute(() -> {
+            try {
+                applyChange(change);
+            } catch (RuntimeException e) {
+                log.error("Applying {} of {} to the statistics failed", change.type(), change.id(), e);
+            }
+        });
+    }
+    
+    @Override
+    public void onReset() {
+        requestRebuild();
+    }
+    
+    private void applyChange(ListingChange change) {
+        if (rebuiltFrom != null && change.clusterTime() != null && change.clusterTime().compareTo(rebuiltFrom) <= 0) {
+            return;
+        }
+        if (!change.isComplete()) {
+            log.debug("No pre- or post-image for {} of {}, scheduling a rebuild", change.type(), change.id());
+            requestRebuild();
+            return;
+        }
+        // Only the fields above are projected, so equal images mean nothing we track changed
+        if (change.before() != null && change.before().equals(change.after())) {
+            return;
+        }
+        if (change.before() != null) {
+            apply(change.before(), -1);
+        }
+        if (change.after() != null) {
+            apply(change.after(), 1);
+        }
+        // The rows were read and tagged at the listing write's version before being updated here
+        collectionVersion.bump();
+    }
+    
+    private void apply(Document listing, int sign) {
+        Object price = listing.get("price");
+        boolean hasPrice = price instanceof Number || price instanceof Decimal128;
+        
+        Document propertyType = new Document("count", add("$count", sign))
+                .append("priceSum", add("$priceSum", hasPrice ? signed(price, sign) : 0))
+                .append("priceCount", add("$priceCount", hasPrice ? sign : 0))
+                .append("minPrice", sign > 0 && hasPrice ? new Document("$min", List.of("$minPrice", price)) : "$minPrice")
+                .append("maxPrice", sign > 0 && hasPrice ? new Document("$max", List.of("$maxPrice", price)) : "$maxPrice")
+                .append("refreshedAt", "$$NOW");
+        upsert(PROPERTY_TYPES, listing.get("property_type"), propertyType,
+                new Document("averagePrice", average("$priceSum", "$priceCount")), "count", sign);
+        
+        Document host = listing.get("host", Document.class);
+        Object hostId = host != null ? host.get("host_id") : null;
+        if (hostId == null) {
+            return;
+        }
+        Document scores = listing.get("review_scores", Document.class);
+        Object rating = scores != null ? scores.get("review_scores_rating") : null;
+        boolean hasRating = rating instanceof Number;
+        
+        Document hostStats = new Document("hostId", hostId)
+                .append("hostName", sign > 0 && host.get("host_name") != null ? host.get("host_name") : "$hostName")
+                .append("listingCount", add("$listingCount", sign))
+                .append("ratingSum", add("$ratingSum", hasRating ? signed(rating, sign) : 0))
+                .append("ratingCount", add("$ratingCount", hasRating ? sign : 0))
+                .append("refreshedAt", "$$NOW");
+        upsert(HOSTS, hostId, hostStats,
+                new Document("averageRating", average("$ratingSum", "$ratingCount")), "listingCount", sign);
+    }
+    
+    private void upsert(String collection, Object key, Document sums, Document derived, String countField, int sign) {
+        MongoCollection<Document> stats = mongoTemplate.getCollection(collection);
+        stats.updateOne(Filters.eq("_id", key),
+                List.of(new Document("$set", sums), new Document("$set", derived)),
+                new UpdateOptions().upsert(true));
+        if (sign < 0) {
+            stats.deleteOne(Filters.and(Filters.eq("_id", key), Filters.lte(countField, 0)));
+        }
+    }
+    
+    private static Document add(String field, Object delta) {
+        return new Document("$add", List.of(new Document("$ifNull", List.of(field, 0)), delta));
+    }
+    
+    private static Document average(String sum, String count) {
+        return new Document("$cond", Arrays.asList(
+                new Document("$gt", List.of(count, 0)),
+                new Document("$divide", List.of(sum, count)),
+                null));
+    }
+    
+    private static Object signed(Object value, int sign) {
+        if (sign > 0) {
+            return value;
+        }
+        if (value instanceof Decimal128 decimal) {
+            return new Decimal128(decimal.bigDecimalValue().negate());
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return -((Number) value).longValue();
+        }
+        return -((Number) value).doubleValue();
+    }
+    
+    // ========== Full rebuild ==========
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (properties.getStats().isMaterialized()
+                && mongoTemplate.estimatedCount(PROPERTY_TYPES) == 0) {
+            requestRebuild();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${listings.stats.rebuild-interval:PT1H}",
+            initialDelayString = "${listings.stats.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        if (properties.getStats().isMaterialized()) {
+            requestRebuild();
+        }
+    }
+    
+    /**
+     * Queues a rebuild unless one is already waiting to run.
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            maintainer.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Statistics rebuild failed", e);
+                }
+            });
+        }
+    }
+    
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        BsonTimestamp readFrom = operationTime();
+        // Rows not rewritten by this rebuild belong to groups that no longer exist
+        String generation = new ObjectId().toHexString();
+        
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.group("property_type")
+                        .count().as("count")
+                        .sum("price").as("priceSum")
+                        .sum(PRICE_PRESENT).as("priceCount")
+                        .min("price").as("minPrice")
+                        .max("price").as("maxPrice"),
+                Aggregation.stage(new Document("$set", new Document("averagePrice", average("$priceSum", "$priceCount"))
+                        .append("refreshedAt", "$$NOW")
+                        .append("generation", generation))),
+                mergeInto(PROPERTY_TYPES)
+        ), ListingAndReviewIndexes.COLLECTION, Document.class);
+        
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("host.host_id").ne(null)),
+                Aggregation.group("host.host_id")
+                        .first("host.host_name").as("hostName")
+                        .count().as("listingCount")
+                        .sum("review_scores.review_scores_rating").as("ratingSum")
+                        .sum(RATING_PRESENT).as("ratingCount"),
+                Aggregation.stage(new Document("$set", new Document("hostId", "$_id")
+                        .append("averageRating", average("$ratingSum", "$ratingCount"))
+                        .append("refreshedAt", "$$NOW")
+                        .append("generation", generation))),
+                mergeInto(HOSTS)
+        ), ListingAndReviewIndexes.COLLECTION, Document.class);
+        
+        Query stale = new Query(Criteria.where("generation").ne(generation));
+        long removed = mongoTemplate.remove(stale, PROPERTY_TYPES).getDeletedCount()
+                + mongoTemplate.remove(stale, HOSTS).getDeletedCount();
+        rebuiltFrom = readFrom;
+        collectionVersion.bump();
+        log.info("Rebuilt listing statistics in {} ms ({} stale rows removed)",
+                System.currentTimeMillis() - start, removed);
+    }
+    
+    // Latest cluster time the deployment has acknowledged; null on a standalone server
+    private BsonTimestamp operationTime() {
+        try (ClientSession session = mongoTemplate.getMongoDatabaseFactory()
+                .getSession(ClientSessionOptions.builder().build())) {
+            mongoTemplate.getDb().runCommand(session, new Document("ping", 1));
+            return session.getOperationTime();
+        } catch (MongoException e) {
+            log.debug("Cannot read the cluster time: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static MergeOperation mergeInto(String collection) {
+        return Aggregation.merge()
+                .intoCollection(collection)
+                .on("_id")
+                .whenMatched(WhenDocumentsMatch.replaceDocument())
+                .whenNotMatched(WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+    }
+    
+    @Override
+    public void destroy() {
+        maintainer.shutdownNow();
+    }
+}
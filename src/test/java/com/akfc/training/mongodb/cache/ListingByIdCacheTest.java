@@ -0,0 +1,69 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.changes.ListingChange;
+import com.akfc.training.mongodb.config.CacheConfig;
+import com.akfc.training.mongodb.model.ListingAndReview;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingByIdCacheTest {
+    
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.LISTING_BY_ID);
+    private final CollectionVersion collectionVersion = new CollectionVersion();
+    private final ListingByIdCache listingByIdCache = new ListingByIdCache(cacheManager, collectionVersion);
+    private final Cache cache = cacheManager.getCache(CacheConfig.LISTING_BY_ID);
+    
+    @Test
+    void listingReadAtTheCurrentVersionIsCached() {
+        ListingAndReview listing = listing("10006546");
+        
+        listingByIdCache.fill("10006546", listing, collectionVersion.current());
+        
+        assertThat(cache.get("10006546", ListingAndReview.class)).isSameAs(listing);
+    }
+    
+    @Test
+    void listingReadBeforeAWriteIsNotCached() {
+        long readAt = collectionVersion.current();
+        collectionVersion.bump();
+        
+        listingByIdCache.fill("10006546", listing("10006546"), readAt);
+        
+        assertThat(cache.get("10006546")).isNull();
+    }
+    
+    @Test
+    void changeEventEvictsTheListingAndMovesTheVersionOn() {
+        String id = new ObjectId().toHexString();
+        cache.put(id, listing(id));
+        cache.put("other", listing("other"));
+        long before = collectionVersion.current();
+        
+        listingByIdCache.onChange(new ListingChange(ListingChange.Type.UPDATE,
+                new BsonObjectId(new ObjectId(id)), null, null, null));
+        
+        assertThat(cache.get(id)).isNull();
+        assertThat(cache.get("other")).isNotNull();
+        assertThat(collectionVersion.current()).isGreaterThan(before);
+    }
+    
+    @Test
+    void resetClearsTheCache() {
+        cache.put("10006546", listing("10006546"));
+        
+        listingByIdCache.onReset();
+        
+        assertThat(cache.get("10006546")).isNull();
+    }
+    
+    private static ListingAndReview listing(String id) {
+        ListingAndReview listing = new ListingAndReview();
+        listing.setId(id);
+        return listing;
+    }
+}
@@ -0,0 +1,95 @@
+package com.akfc.training.mongodb.cache;
+
+import com.akfc.training.mongodb.config.ListingsProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryResultCacheTest {
+    
+    private final ListingsProperties properties = new ListingsProperties();
+    private final CollectionVersion collectionVersion = new CollectionVersion();
+    private final AtomicInteger loads = new AtomicInteger();
+    
+    @Test
+    void repeatedQueriesAreServedFromTheCache() {
+        QueryResultCache cache = cache();
+        
+        List<String> first = cache.get("search", "key", this::load);
+        List<String> second = cache.get("search", "key", this::load);
+        
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+    
+    @Test
+    void versionBumpInvalidatesEntries() {
+        QueryResultCache cache = cache();
+        cache.get("search", "key", this::load);
+        
+        collectionVersion.bump();
+        List<String> afterWrite = cache.get("search", "key", this::load);
+        
+        assertThat(afterWrite).containsExactly("listing-2");
+        assertThat(loads).hasValue(2);
+        assertThat(cache.get("search", "key", this::load)).isSameAs(afterWrite);
+    }
+    
+    @Test
+    void changeEventsInvalidateEntriesToo() {
+        QueryResultCache cache = cache();
+        cache.get("stats", "key", this::load);
+        
+        collectionVersion.onReset();
+        cache.get("stats", "key", this::load);
+        
+        assertThat(loads).hasValue(2);
+    }
+    
+    @Test
+    void operationIsPartOfTheKey() {
+        QueryResultCache cache = cache();
+        
+        cache.get("search", "key", this::load);
+        cache.get("facetedSearch", "key", this::load);
+        
+        assertThat(loads).hasValue(2);
+    }
+    
+    @Test
+    void nullResultsAreNotCached() {
+        QueryResultCache cache = cache();
+        
+        cache.get("search", "key", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.get("search", "key", this::load);
+        
+        assertThat(loads).hasValue(2);
+    }
+    
+    @Test
+    void disabledCacheAlwaysLoads() {
+        properties.getResultCache().setEnabled(false);
+        QueryResultCache cache = cache();
+        
+        cache.get("search", "key", this::load);
+        cache.get("search", "key", this::load);
+        
+        assertThat(loads).hasValue(2);
+    }
+    
+    private QueryResultCache cache() {
+        return new QueryResultCache(properties, collectionVersion, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+    
+    private List<String> load() {
+        return List.of("listing-" + loads.incrementAndGet());
+    }
+}
@@ -0,0 +1,161 @@
+package com.akfc.training.mongodb.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+    
+    private static final int FOLLOWERS = 4;
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(true, meterRegistry);
+    private final ExecutorService callers = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+    
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        
+        List<Future<String>> results = callConcurrently("key", () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "result";
+        });
+        release.countDown();
+        
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(calls("executed")).isEqualTo(1);
+        assertThat(calls("coalesced")).isEqualTo(FOLLOWERS);
+    }
+    
+    @Test
+    void leaderExceptionReachesEveryFollower() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("primary stepped down");
+        
+        List<Future<String>> results = callConcurrently("key", () -> {
+            await(release);
+            throw failure;
+        });
+        release.countDown();
+        
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseReference(failure);
+        }
+    }
+    
+    @Test
+    void entryIsRemovedOnceTheLeaderFinishes() {
+        AtomicInteger executions = new AtomicInteger();
+        
+        singleFlight.execute("find", "key", executions::incrementAndGet);
+        assertThatThrownBy(() -> singleFlight.execute("find", "key", () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+        singleFlight.execute("find", "key", executions::incrementAndGet);
+        
+        // Nothing is cached: sequential calls, successful or not, each run the loader
+        assertThat(executions).hasValue(3);
+        assertThat(meterRegistry.get("listings.single-flight.in-flight").gauge().value()).isZero();
+    }
+    
+    @Test
+    void differentKeysOrOperationsAreNotCoalesced() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        
+        Future<String> first = callers.submit(() ->
+                singleFlight.execute("find", "a", () -> countDownAndAwait(allStarted)));
+        Future<String> second = callers.submit(() ->
+                singleFlight.execute("find", "b", () -> countDownAndAwait(allStarted)));
+        Future<String> third = callers.submit(() ->
+                singleFlight.execute("count", "a", () -> countDownAndAwait(allStarted)));
+        
+        // Each loader waits for the other two, which only completes if none joined another
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+    
+    @Test
+    void disabledRunsEveryCall() {
+        SingleFlight disabled = new SingleFlight(false, new SimpleMeterRegistry());
+        AtomicInteger executions = new AtomicInteger();
+        
+        disabled.execute("find", "key", executions::incrementAndGet);
+        disabled.execute("find", "key", executions::incrementAndGet);
+        
+        assertThat(executions).hasValue(2);
+    }
+    
+    // Starts the leader, waits until it is in flight, then starts the followers on the same key
+    private <T> List<Future<T>> callConcurrently(String key, Supplier<T> loader)
+            throws InterruptedException {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        results.add(callers.submit(() -> singleFlight.execute("find", key, () -> {
+            leaderStarted.countDown();
+            return loader.get();
+        })));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(callers.submit(() -> singleFlight.execute("find", key, loader)));
+        }
+        // Followers have joined once they are counted as coalesced
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls("coalesced") < FOLLOWERS && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return results;
+    }
+    
+    private double calls(String outcome) {
+        Counter counter = meterRegistry.find("listings.single-flight.calls").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+    
+    private static String countDownAndAwait(CountDownLatch latch) {
+        latch.countDown();
+        await(latch);
+        return "done";
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
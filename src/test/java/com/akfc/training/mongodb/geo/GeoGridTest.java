@@ -0,0 +1,117 @@
+package com.akfc.training.mongodb.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class GeoGridTest {
+    
+    private final GeoGrid grid = new GeoGrid(0.01);
+    
+    @Test
+    void withinReturnsOnlyEntriesInsideTheBox() {
+        grid.put(entry("in", -73.98, 40.75));
+        grid.put(entry("west", -74.30, 40.75));
+        grid.put(entry("north", -73.98, 41.20));
+        
+        List<SpatialEntry> found = grid.within(-74.0, 40.7, -73.9, 40.8, entry -> true, 10);
+        
+        assertThat(found).extracting(SpatialEntry::id).containsExactly("in");
+    }
+    
+    @Test
+    void wholeWorldViewportScansPopulatedCellsOnly() {
+        grid.put(entry("new-york", -73.98, 40.75));
+        grid.put(entry("sydney", 151.21, -33.87));
+        grid.put(entry("pole", 0, 90));
+        
+        long start = System.nanoTime();
+        List<SpatialEntry> found = grid.within(-180, -90, 180, 90, entry -> !"sydney".equals(entry.id()), 10);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        assertThat(found).extracting(SpatialEntry::id).containsExactlyInAnyOrder("new-york", "pole");
+        // 36000 x 18000 cells would take seconds to visit one by one
+        assertThat(elapsedMillis).isLessThan(500);
+    }
+    
+    @Test
+    void nearestRanksByDistance() {
+        grid.put(entry("far", -73.90, 40.75));
+        grid.put(entry("near", -73.979, 40.75));
+        grid.put(entry("middle", -73.95, 40.75));
+        
+        List<SpatialNeighbor> found = grid.nearest(-73.98, 40.75, 0, 20_000, entry -> true, 10);
+        
+        assertThat(found).extracting(neighbor -> neighbor.entry().id()).containsExactly("near", "middle", "far");
+        assertThat(found.get(0).distance())
+                .isCloseTo(GeoGrid.distance(-73.98, 40.75, -73.979, 40.75), offset(1e-6));
+        assertThat(found).isSortedAccordingTo((a, b) -> Double.compare(a.distance(), b.distance()));
+    }
+    
+    @Test
+    void nearestAppliesMinDistanceAndLimit() {
+        grid.put(entry("a", 10.000, 0));
+        grid.put(entry("b", 10.001, 0));
+        grid.put(entry("c", 10.002, 0));
+        grid.put(entry("d", 10.003, 0));
+        
+        List<SpatialNeighbor> found = grid.nearest(10.000, 0, 50, 1_000, entry -> true, 2);
+        
+        assertThat(found).extracting(neighbor -> neighbor.entry().id()).containsExactly("b", "c");
+    }
+    
+    @Test
+    void nearestWrapsAroundTheAntimeridian() {
+        grid.put(entry("east-of-line", 179.995, -17.0));
+        grid.put(entry("far-away", 170.0, -17.0));
+        
+        List<SpatialNeighbor> found = grid.nearest(-179.995, -17.0, 0, 5_000, entry -> true, 10);
+        
+        assertThat(found).extracting(neighbor -> neighbor.entry().id()).containsExactly("east-of-line");
+        assertThat(found.get(0).distance()).isLessThan(1_500);
+    }
+    
+    @Test
+    void nearestNearThePoleSearchesEveryLongitude() {
+        grid.put(entry("across-the-pole", 180.0, 89.995));
+        grid.put(entry("same-side", 0.0, 89.99));
+        grid.put(entry("too-far", 0.0, 80.0));
+        
+        List<SpatialNeighbor> found = grid.nearest(0.0, 89.995, 0, 5_000, entry -> true, 10);
+        
+        assertThat(found).extracting(neighbor -> neighbor.entry().id())
+                .containsExactly("same-side", "across-the-pole");
+    }
+    
+    @Test
+    void hugeRadiusFindsEverythingWithoutVisitingEveryCell() {
+        grid.put(entry("paris", 2.35, 48.86));
+        grid.put(entry("tokyo", 139.69, 35.69));
+        
+        List<SpatialNeighbor> found = grid.nearest(2.35, 48.86, 0, 25_000_000, entry -> true, 10);
+        
+        assertThat(found).extracting(neighbor -> neighbor.entry().id()).containsExactly("paris", "tokyo");
+    }
+    
+    @Test
+    void putMovesAndRemoveDropsAnEntry() {
+        grid.put(entry("moving", -73.98, 40.75));
+        grid.put(entry("moving", 2.35, 48.86));
+        
+        assertThat(grid.size()).isEqualTo(1);
+        assertThat(grid.within(-74.0, 40.7, -73.9, 40.8, entry -> true, 10)).isEmpty();
+        assertThat(grid.within(2.3, 48.8, 2.4, 48.9, entry -> true, 10)).hasSize(1);
+        
+        grid.remove("moving");
+        
+        assertThat(grid.size()).isZero();
+        assertThat(grid.within(2.3, 48.8, 2.4, 48.9, entry -> true, 10)).isEmpty();
+    }
+    
+    private static SpatialEntry entry(String id, double longitude, double latitude) {
+        return new SpatialEntry(id, longitude, latitude, 100.0, "Entire home/apt");
+    }
+}
@@ -0,0 +1,48 @@
+package com.akfc.training.mongodb.model;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingNumericFieldsTest {
+    
+    @Test
+    void numericStringsGetTheStoredTypes() {
+        Document listing = ListingNumericFields.normalize(new Document("price", "80.00")
+                .append("minimum_nights", "2")
+                .append("maximum_nights", " 1125 "));
+        
+        assertThat(listing.get("price")).isEqualTo(Decimal128.parse("80.00"));
+        assertThat(listing.get("minimum_nights")).isEqualTo(2);
+        assertThat(listing.get("maximum_nights")).isEqualTo(1125);
+    }
+    
+    @Test
+    void nightCountsBeyondInt32AreClamped() {
+        Document listing = ListingNumericFields.normalize(new Document("minimum_nights", "-99999999999")
+                .append("maximum_nights", "99999999999"));
+        
+        assertThat(listing.get("minimum_nights")).isEqualTo(Integer.MIN_VALUE);
+        assertThat(listing.get("maximum_nights")).isEqualTo(Integer.MAX_VALUE);
+    }
+    
+    @Test
+    void fractionalNightCountsAreRounded() {
+        Document listing = ListingNumericFields.normalize(new Document("minimum_nights", 2.5)
+                .append("maximum_nights", Decimal128.parse("30.2")));
+        
+        assertThat(listing.get("minimum_nights")).isEqualTo(3);
+        assertThat(listing.get("maximum_nights")).isEqualTo(30);
+    }
+    
+    @Test
+    void nonNumericValuesAreKept() {
+        Document listing = ListingNumericFields.normalize(new Document("price", "n/a")
+                .append("maximum_nights", "unlimited"));
+        
+        assertThat(listing.get("price")).isEqualTo("n/a");
+        assertThat(listing.get("maximum_nights")).isEqualTo("unlimited");
+    }
+}
@@ -0,0 +1,71 @@
+package com.akfc.training.mongodb.pagination;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ContinuationTokenTest {
+    
+    @Test
+    void roundTripKeepsTheBsonTypesOfTheLastValueAndId() {
+        Decimal128 price = new Decimal128(new BigDecimal("129.50"));
+        ObjectId id = new ObjectId();
+        ContinuationToken token = new ContinuationToken(ListingSortKey.PRICE, Sort.Direction.DESC, price, id);
+        
+        ContinuationToken decoded = ContinuationToken.decode(token.encode());
+        
+        assertThat(decoded).isEqualTo(token);
+        assertThat(decoded.getLastValue()).isInstanceOf(Decimal128.class);
+        assertThat(decoded.getLastId()).isInstanceOf(ObjectId.class);
+    }
+    
+    @Test
+    void roundTripOfDatesAndStringIds() {
+        Date lastReview = new Date(1_700_000_000_000L);
+        ContinuationToken token = new ContinuationToken(ListingSortKey.NAME, Sort.Direction.ASC, lastReview, "10006546");
+        
+        assertThat(ContinuationToken.decode(token.encode())).isEqualTo(token);
+    }
+    
+    @Test
+    void encodedTokenIsUrlSafe() {
+        ContinuationToken token = new ContinuationToken(ListingSortKey.NAME, Sort.Direction.ASC,
+                "???>>>~~~ spaces & symbols", "id/with+chars");
+        
+        assertThat(token.encode()).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ContinuationToken.decode("not a token!"));
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotJson() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ContinuationToken.decode(encode("{ broken")));
+    }
+    
+    @Test
+    void rejectsTokensWithMissingOrUnknownFields() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ContinuationToken.decode(
+                encode(new Document("d", "ASC").append("v", 1).append("i", 1).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> ContinuationToken.decode(
+                encode(new Document("k", "HOST_NAME").append("d", "ASC").append("v", 1).append("i", 1).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> ContinuationToken.decode(
+                encode(new Document("k", "PRICE").append("d", "SIDEWAYS").append("v", 1).append("i", 1).toJson())));
+    }
+    
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,61 @@
+package com.akfc.training.mongodb.pagination;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class GeoCursorTest {
+    
+    @Test
+    void roundTripKeepsDistanceAndTiedIds() {
+        ObjectId objectId = new ObjectId();
+        GeoCursor cursor = new GeoCursor(1234.5678, List.of("10006546", objectId));
+        
+        GeoCursor decoded = GeoCursor.decode(cursor.encode());
+        
+        assertThat(decoded.distance()).isEqualTo(1234.5678);
+        assertThat(decoded.ids()).containsExactly("10006546", objectId);
+    }
+    
+    @Test
+    void roundTripOfTheFirstPosition() {
+        GeoCursor cursor = new GeoCursor(0, List.of());
+        
+        assertThat(GeoCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatIllegalArgumentException().isThrownBy(() -> GeoCursor.decode("%%%"));
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotJson() {
+        assertThatIllegalArgumentException().isThrownBy(() -> GeoCursor.decode(encode("[1, 2")));
+    }
+    
+    @Test
+    void rejectsTokensWithoutANumericDistance() {
+        assertThatIllegalArgumentException().isThrownBy(() -> GeoCursor.decode(
+                encode(new Document("i", List.of("a")).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> GeoCursor.decode(
+                encode(new Document("d", "far").append("i", List.of("a")).toJson())));
+    }
+    
+    @Test
+    void rejectsTokensWhoseIdsAreNotAList() {
+        assertThatIllegalArgumentException().isThrownBy(() -> GeoCursor.decode(
+                encode(new Document("d", 10.0).append("i", "a").toJson())));
+    }
+    
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
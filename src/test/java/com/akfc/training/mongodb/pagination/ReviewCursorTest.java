@@ -0,0 +1,57 @@
+package com.akfc.training.mongodb.pagination;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ReviewCursorTest {
+    
+    @Test
+    void roundTripKeepsBucketAndIndex() {
+        ReviewCursor cursor = new ReviewCursor(12, 37);
+        
+        assertThat(ReviewCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void encodedCursorIsUrlSafe() {
+        assertThat(new ReviewCursor(Integer.MAX_VALUE, 0).encode()).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode("not a cursor!"));
+    }
+    
+    @Test
+    void rejectsTokensThatAreNotJson() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(encode("{ \"b\": ")));
+    }
+    
+    @Test
+    void rejectsJsonOfTheWrongShape() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(encode("[1, 2]")));
+    }
+    
+    @Test
+    void rejectsTokensWithMissingOrMistypedFields() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(
+                encode(new Document("i", 3).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(
+                encode(new Document("b", 1).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(
+                encode(new Document("b", "first").append("i", 3).toJson())));
+        assertThatIllegalArgumentException().isThrownBy(() -> ReviewCursor.decode(
+                encode(new Document("b", 1).append("i", List.of(3)).toJson())));
+    }
+    
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.akfc.training.mongodb.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MergePatchTranslatorTest {
+    
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final MergePatchTranslator translator = new MergePatchTranslator(objectMapper, mappingContext());
+    
+    @Test
+    void nullMembersBecomeUnset() {
+        Document update = translate("{\"summary\": null, \"host\": {\"hostAbout\": null}}");
+        
+        assertThat(update.get("$unset", Document.class)).containsOnlyKeys("summary", "host.hostAbout");
+        assertThat(update).doesNotContainKey("$set");
+    }
+    
+    @Test
+    void nestedObjectsAreMergedFieldByField() {
+        Document update = translate("{\"address\": {\"market\": \"Porto\", \"location\": {\"isLocationExact\": true}}}");
+        
+        Document set = update.get("$set", Document.class);
+        assertThat(set).containsOnlyKeys("address.market", "address.location.isLocationExact");
+        assertThat(set.get("address.market")).isEqualTo("Porto");
+        assertThat(set.get("address.location.isLocationExact")).isEqualTo(true);
+    }
+    
+    @Test
+    void valuesAreConvertedToThePropertyType() {
+        Document update = translate("{\"price\": 120.5, \"accommodates\": 4, \"amenities\": [\"Wifi\", \"Kitchen\"],"
+                + " \"lastReview\": \"2019-03-01T10:00:00\"}");
+        
+        Document set = update.get("$set", Document.class);
+        assertThat(set.get("price")).isEqualTo(new BigDecimal("120.5"));
+        assertThat(set.get("accommodates")).isEqualTo(4);
+        assertThat(set.get("amenities")).isEqualTo(List.of("Wifi", "Kitchen"));
+        assertThat(set.get("lastReview")).isEqualTo(LocalDateTime.of(2019, 3, 1, 10, 0));
+    }
+    
+    @Test
+    void arraysAreReplacedNotMerged() {
+        Document update = translate("{\"amenities\": []}");
+        
+        assertThat(update.get("$set", Document.class).get("amenities")).isEqualTo(List.of());
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"id", "version", "reviews", "reviewsBucketed", "score"})
+    void readOnlyFieldsAreRejected(String field) {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> translate("{\"" + field + "\": null}"))
+                .withMessageContaining(field);
+    }
+    
+    @Test
+    void unknownFieldsAreRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> translate("{\"host\": {\"hostShoeSize\": 42}}"))
+                .withMessageContaining("host.hostShoeSize");
+    }
+    
+    @Test
+    void valuesOfTheWrongTypeAreRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> translate("{\"accommodates\": \"many\"}"))
+                .withMessageContaining("accommodates");
+    }
+    
+    @Test
+    void patchMustBeAnObject() {
+        assertThatIllegalArgumentException().isThrownBy(() -> translate("[{\"name\": \"x\"}]"));
+    }
+    
+    // Java time types are simple values, not entities, as in the application's mapping context
+    private static MongoMappingContext mappingContext() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        return mappingContext;
+    }
+    
+    private Document translate(String patch) {
+        try {
+            JsonNode node = objectMapper.readTree(patch);
+            return translator.toUpdate(node).getUpdateObject();
+        } catch (JsonProcessingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.akfc.training.mongodb.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ListingQueriesTest {
+    
+    @Test
+    void textSearchAcceptsLanguageNamesAndCodesInAnyCase() {
+        Query byName = ListingQueries.textSearch("beach", "French", 0, 20);
+        Query byCode = ListingQueries.textSearch("beach", "pt", 0, 20);
+        
+        assertThat(byName.getQueryObject().get("$text", Document.class).getString("$language"))
+                .isEqualTo("french");
+        assertThat(byCode.getQueryObject().get("$text", Document.class).getString("$language"))
+                .isEqualTo("pt");
+    }
+    
+    @Test
+    void textSearchRejectsUnsupportedLanguages() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> ListingQueries.textSearch("beach", "klingon", 0, 20))
+                .withMessageContaining("klingon");
+    }
+}